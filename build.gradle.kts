@@ -15,10 +15,23 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
 dependencies {
     implementation("org.jspecify:jspecify:1.0.0")
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 java {
@@ -27,4 +40,25 @@ java {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// Usage: ./gradlew jmh [-PjmhArgs="IrBenchmark -p fixture=large"]
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks of the compiler phases, reporting ops/s and allocation rate."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    args("-prof", "gc", "-rf", "json", "-rff", resultFile.path)
+    doFirst { resultFile.parentFile.mkdirs() }
+    providers.gradleProperty("jmhArgs").orNull?.let { args(it.split(" ").filter(String::isNotBlank)) }
+}
+
+// Usage: ./gradlew scalingReport [-PscalingArgs="--max-scale=32 deep-nesting"]
+tasks.register<JavaExec>("scalingReport") {
+    group = "verification"
+    description = "Prints how the compiler phases scale on generated workloads of increasing size."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "edu.kit.kastel.vads.compiler.benchmark.ScalingReport"
+    providers.gradleProperty("scalingArgs").orNull?.let { args(it.split(" ").filter(String::isNotBlank)) }
+}
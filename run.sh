@@ -1,3 +1,13 @@
 #!/usr/bin/env sh
 BIN_DIR="$(dirname "$0")/build/install/compiler/bin"
+
+# Forward the compilation to a running compile server (compiler --server=<socket>) if one is configured
+if [ -n "$COMPILER_SERVER_SOCKET" ] && [ -S "$COMPILER_SERVER_SOCKET" ] && [ "$#" -eq 2 ] && command -v socat >/dev/null 2>&1; then
+    response=$(printf '%s\t%s\n' "$(realpath -m "$1")" "$(realpath -m "$2")" \
+        | socat -t 600 - "UNIX-CONNECT:$COMPILER_SERVER_SOCKET")
+    if [ -n "$response" ]; then
+        exit "${response%%	*}"
+    fi
+fi
+
 $BIN_DIR/compiler "$@"
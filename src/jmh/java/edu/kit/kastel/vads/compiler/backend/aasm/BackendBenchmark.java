@@ -0,0 +1,152 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocationMode;
+import edu.kit.kastel.vads.compiler.benchmark.Fixtures;
+import edu.kit.kastel.vads.compiler.ir.IrFile;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
+import edu.kit.kastel.vads.compiler.ir.SsaConstruction;
+import edu.kit.kastel.vads.compiler.ir.SsaConstructionMode;
+import edu.kit.kastel.vads.compiler.ir.dataflow.DataflowSolver;
+import edu.kit.kastel.vads.compiler.ir.dataflow.LiveValuesAnalysis;
+import edu.kit.kastel.vads.compiler.ir.dataflow.ReachingDefinitionsAnalysis;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Lives in the backend package to reach InstructionSelector.deSSA, so the phases see the same IR as in the pipeline.
+// Constants encoded as immediates are left out of liveness and register allocation there, so they are here as well.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BackendBenchmark {
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE})
+    public String fixture;
+
+    private List<IrFunction> functions;
+    private List<ImmediateOperands> immediateOperands;
+    private List<LivenessAnalysisResult> livenessAnalysisResults;
+    private List<RegisterAllocationResult> allocationResults;
+    private List<MachineFunction> machineFunctions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        IrFile irFile = new SsaConstruction(CompilerStatistics.disabled(), SsaConstructionMode.DOMINANCE_FRONTIERS).generateIr(Fixtures.analyze(Fixtures.source(fixture)));
+        InstructionSelector instructionSelector = new InstructionSelector(
+                CompilerStatistics.disabled(), RegisterAllocationMode.CHORDAL, PeepholeOptimizer.DEFAULT_WINDOW);
+
+        functions = irFile.functions();
+        immediateOperands = new ArrayList<>();
+        livenessAnalysisResults = new ArrayList<>();
+        allocationResults = new ArrayList<>();
+        machineFunctions = new ArrayList<>();
+        for (IrFunction function : functions) {
+            instructionSelector.deSSA(function);
+            ImmediateOperands functionImmediateOperands = ImmediateOperands.compute(function);
+            immediateOperands.add(functionImmediateOperands);
+            LivenessAnalysisResult livenessAnalysisResult = new LivenessAnalysis().run(function, functionImmediateOperands);
+            livenessAnalysisResults.add(livenessAnalysisResult);
+            RegisterAllocationResult allocationResult
+                    = new AasmRegisterAllocator(new LivenessAnalysis()).allocateRegisters(function, livenessAnalysisResult);
+            allocationResults.add(allocationResult);
+
+            MachineFunctionBuilder machineFunctionBuilder = new MachineFunctionBuilder();
+            instructionSelector.generateFunction(
+                    function,
+                    BlockLayout.compute(function, allocationResult),
+                    new X86Bit64CodeGenerator(machineFunctionBuilder),
+                    CodeGenerationContext.createForFunction(function, allocationResult));
+            machineFunctions.add(machineFunctionBuilder.build());
+        }
+    }
+
+    @Benchmark
+    public void immediateOperands(Blackhole blackhole) {
+        for (IrFunction function : functions) {
+            blackhole.consume(ImmediateOperands.compute(function));
+        }
+    }
+
+    @Benchmark
+    public void livenessAnalysis(Blackhole blackhole) {
+        for (int i = 0; i < functions.size(); i++) {
+            blackhole.consume(new LivenessAnalysis().run(functions.get(i), immediateOperands.get(i)));
+        }
+    }
+
+    // Block level fixpoint only, without the per-instruction live sets
+    @Benchmark
+    public void blockLiveness(Blackhole blackhole) {
+        for (IrFunction function : functions) {
+            blackhole.consume(DataflowSolver.solve(function, new LiveValuesAnalysis(function)));
+        }
+    }
+
+    @Benchmark
+    public void reachingDefinitions(Blackhole blackhole) {
+        for (IrFunction function : functions) {
+            blackhole.consume(DataflowSolver.solve(function, new ReachingDefinitionsAnalysis(function)));
+        }
+    }
+
+    @Benchmark
+    public void interferenceGraph(Blackhole blackhole) {
+        for (int i = 0; i < functions.size(); i++) {
+            blackhole.consume(InterferenceGraph.createFrom(functions.get(i), livenessAnalysisResults.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void registerAllocation(Blackhole blackhole) {
+        for (int i = 0; i < functions.size(); i++) {
+            AasmRegisterAllocator allocator = new AasmRegisterAllocator(new LivenessAnalysis());
+            blackhole.consume(allocator.allocateRegisters(functions.get(i), livenessAnalysisResults.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void linearScanRegisterAllocation(Blackhole blackhole) {
+        for (int i = 0; i < functions.size(); i++) {
+            LinearScanRegisterAllocator allocator = new LinearScanRegisterAllocator();
+            blackhole.consume(allocator.allocateRegisters(functions.get(i), livenessAnalysisResults.get(i)));
+        }
+    }
+
+    // Empty blocks were already bypassed by the setup, so this measures placing the chains and rotating loops
+    @Benchmark
+    public void blockLayout(Blackhole blackhole) {
+        for (int i = 0; i < functions.size(); i++) {
+            blackhole.consume(BlockLayout.compute(functions.get(i), allocationResults.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void peephole(PeepholeState state, Blackhole blackhole) {
+        PeepholeOptimizer peepholeOptimizer = new PeepholeOptimizer(PeepholeOptimizer.DEFAULT_WINDOW);
+        for (MachineFunction machineFunction : state.machineFunctions) {
+            peepholeOptimizer.run(machineFunction);
+            blackhole.consume(machineFunction);
+        }
+    }
+
+    // The peephole optimizer rewrites the instruction lists in place, so every invocation needs fresh copies
+    @State(Scope.Thread)
+    public static class PeepholeState {
+        private List<MachineFunction> machineFunctions;
+
+        @Setup(Level.Invocation)
+        public void setUp(BackendBenchmark benchmark) {
+            machineFunctions = new ArrayList<>();
+            for (MachineFunction machineFunction : benchmark.machineFunctions) {
+                List<MachineBlock> blocks = new ArrayList<>();
+                for (MachineBlock block : machineFunction.blocks()) {
+                    blocks.add(new MachineBlock(block.label(), new ArrayList<>(block.instructions())));
+                }
+                machineFunctions.add(new MachineFunction(blocks));
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package edu.kit.kastel.vads.compiler.benchmark;
+
+import edu.kit.kastel.vads.compiler.backend.aasm.CodeGenerator;
+import edu.kit.kastel.vads.compiler.backend.aasm.InstructionSelector;
+import edu.kit.kastel.vads.compiler.backend.aasm.PeepholeOptimizer;
+import edu.kit.kastel.vads.compiler.backend.aasm.X86Bit64CodeGenerator;
+import edu.kit.kastel.vads.compiler.backend.aasm.X86AssemblyGenerator;
+import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocationMode;
+import edu.kit.kastel.vads.compiler.frontend.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.frontend.parser.Parser;
+import edu.kit.kastel.vads.compiler.frontend.parser.TokenSource;
+import edu.kit.kastel.vads.compiler.frontend.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.frontend.semantic.SemanticAnalysis;
+import edu.kit.kastel.vads.compiler.frontend.semantic.hir.TypedFile;
+import edu.kit.kastel.vads.compiler.ir.IrFile;
+import edu.kit.kastel.vads.compiler.pipeline.IRStep;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// L2 programs of increasing size, checked in under src/jmh/resources/fixtures.
+// Names of the form <preset>:<scale>[:<seed>] (e.g. deep-nesting:4) are generated by WorkloadGenerator instead.
+public final class Fixtures {
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String LARGE = "large";
+    public static final long DEFAULT_SEED = 42;
+
+    private Fixtures() {
+    }
+
+    public static String source(String name) {
+        if (name.contains(":")) {
+            return generatedSource(name);
+        }
+
+        String resource = "/fixtures/" + name + ".l2";
+        try (InputStream stream = Fixtures.class.getResourceAsStream(resource)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("Unknown fixture " + name);
+            }
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String generatedSource(String name) {
+        String[] parts = name.split(":");
+        if (parts.length > 3) {
+            throw new IllegalArgumentException("Invalid generated fixture " + name);
+        }
+        WorkloadPreset preset = WorkloadPreset.fromId(parts[0]);
+        int scale = Integer.parseInt(parts[1]);
+        long seed = parts.length == 3 ? Long.parseLong(parts[2]) : DEFAULT_SEED;
+        return WorkloadGenerator.generate(preset.shape(scale), seed);
+    }
+
+    public static ProgramTree parse(String source) {
+        return new Parser(new TokenSource(Lexer.forString(source))).parseProgram();
+    }
+
+    public static TypedFile analyze(String source) {
+        return new SemanticAnalysis(parse(source)).analyze();
+    }
+
+    // Runs the pipeline up to the assembly text, without writing files or invoking gcc
+    public static String compile(String source, CompilerStatistics statistics) {
+        ProgramTree programTree = statistics.measure("parse", () -> parse(source));
+        TypedFile typedFile = statistics.measure("semanticAnalysis", () -> new SemanticAnalysis(programTree).analyze());
+        IrFile irFile = new IRStep().run(typedFile, statistics);
+
+        StringBuilder code = new StringBuilder();
+        CodeGenerator codeGenerator = new X86Bit64CodeGenerator(new X86AssemblyGenerator(code));
+        statistics.measure("instructionSelection",
+                () -> new InstructionSelector(statistics, RegisterAllocationMode.CHORDAL, PeepholeOptimizer.DEFAULT_WINDOW)
+                        .generateCode(irFile, codeGenerator, "workload.l2"));
+        return code.toString();
+    }
+}
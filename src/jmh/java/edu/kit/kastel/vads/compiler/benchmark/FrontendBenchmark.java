@@ -0,0 +1,56 @@
+package edu.kit.kastel.vads.compiler.benchmark;
+
+import edu.kit.kastel.vads.compiler.frontend.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.frontend.lexer.Token;
+import edu.kit.kastel.vads.compiler.frontend.parser.Parser;
+import edu.kit.kastel.vads.compiler.frontend.parser.TokenSource;
+import edu.kit.kastel.vads.compiler.frontend.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.frontend.semantic.Elaborator;
+import edu.kit.kastel.vads.compiler.frontend.semantic.hir.TypeChecker;
+import edu.kit.kastel.vads.compiler.frontend.semantic.hir.TypedFile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FrontendBenchmark {
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE})
+    public String fixture;
+
+    private String source;
+    private ProgramTree programTree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = Fixtures.source(fixture);
+        programTree = Fixtures.parse(source);
+    }
+
+    @Benchmark
+    public void lexer(Blackhole blackhole) {
+        Lexer lexer = Lexer.forString(source);
+        Optional<Token> token;
+        while ((token = lexer.nextToken()).isPresent()) {
+            blackhole.consume(token.get());
+        }
+    }
+
+    @Benchmark
+    public TokenSource tokenSource() {
+        return new TokenSource(Lexer.forString(source));
+    }
+
+    @Benchmark
+    public ProgramTree parser() {
+        return new Parser(new TokenSource(Lexer.forString(source))).parseProgram();
+    }
+
+    @Benchmark
+    public TypedFile elaborator() {
+        return new Elaborator(new TypeChecker()).elaborate(programTree);
+    }
+}
@@ -0,0 +1,68 @@
+package edu.kit.kastel.vads.compiler.benchmark;
+
+import edu.kit.kastel.vads.compiler.frontend.semantic.hir.TypedFile;
+import edu.kit.kastel.vads.compiler.ir.*;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IrBenchmark {
+    @Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE})
+    public String fixture;
+
+    private TypedFile typedFile;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        typedFile = Fixtures.analyze(Fixtures.source(fixture));
+    }
+
+    @Benchmark
+    public IrFile ssaConstruction() {
+        return new SsaConstruction(CompilerStatistics.disabled(), SsaConstructionMode.DOMINANCE_FRONTIERS).generateIr(typedFile);
+    }
+
+    @Benchmark
+    public IrFile onTheFlySsaConstruction() {
+        return new SsaConstruction(CompilerStatistics.disabled(), SsaConstructionMode.ON_THE_FLY).generateIr(typedFile);
+    }
+
+    @Benchmark
+    public void phiInsertion(PhiInsertionState state, Blackhole blackhole) {
+        for (PendingPhiInsertion pending : state.pendingPhiInsertions) {
+            blackhole.consume(new IrPhiGenerator().addPhis(pending.function(), pending.variables(), pending.generator()));
+        }
+    }
+
+    // addPhis mutates the function, so every invocation needs freshly constructed IR without phis
+    @State(Scope.Thread)
+    public static class PhiInsertionState {
+        private List<PendingPhiInsertion> pendingPhiInsertions;
+
+        @Setup(Level.Invocation)
+        public void setUp(IrBenchmark benchmark) {
+            // Functions are constructed concurrently
+            pendingPhiInsertions = Collections.synchronizedList(new ArrayList<>());
+            new SsaConstruction(CompilerStatistics.disabled(), SsaConstructionMode.DOMINANCE_FRONTIERS) {
+                @Override
+                protected void insertPhis(IrFunction function, SsaConstructionContext context) {
+                    pendingPhiInsertions.add(new PendingPhiInsertion(
+                            function, context.getSSAVariables(), context.ssaValueGenerator()));
+                }
+            }.generateIr(benchmark.typedFile);
+        }
+    }
+
+    private record PendingPhiInsertion(
+            IrFunction function,
+            SSAVariableRenameRecording variables,
+            SSAValueGenerator generator) { }
+}
@@ -0,0 +1,135 @@
+package edu.kit.kastel.vads.compiler.benchmark;
+
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+import edu.kit.kastel.vads.compiler.statistics.PhaseStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compiles generated workloads of doubling scale and prints the best wall time in ms per phase together with the
+// growth exponent k of the total time (time ~ lines^k) between consecutive scales.
+// Usage: ScalingReport [--max-scale=N] [--repetitions=N] [--budget-seconds=N] [--seed=N] [preset...]
+public final class ScalingReport {
+    private final int maxScale;
+    private final int repetitions;
+    private final long budgetNanos;
+    private final long seed;
+
+    private ScalingReport(int maxScale, int repetitions, long budgetNanos, long seed) {
+        this.maxScale = maxScale;
+        this.repetitions = repetitions;
+        this.budgetNanos = budgetNanos;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) {
+        int maxScale = 16;
+        int repetitions = 3;
+        long budgetSeconds = 30;
+        long seed = Fixtures.DEFAULT_SEED;
+        List<WorkloadPreset> presets = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--max-scale=")) {
+                maxScale = Integer.parseInt(arg.substring("--max-scale=".length()));
+            } else if (arg.startsWith("--repetitions=")) {
+                repetitions = Integer.parseInt(arg.substring("--repetitions=".length()));
+            } else if (arg.startsWith("--budget-seconds=")) {
+                budgetSeconds = Long.parseLong(arg.substring("--budget-seconds=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                presets.add(WorkloadPreset.fromId(arg));
+            }
+        }
+        if (presets.isEmpty()) {
+            presets.addAll(Arrays.asList(WorkloadPreset.values()));
+        }
+
+        ScalingReport report = new ScalingReport(maxScale, repetitions, budgetSeconds * 1_000_000_000L, seed);
+        for (WorkloadPreset preset : presets) {
+            report.run(preset);
+        }
+    }
+
+    private void run(WorkloadPreset preset) {
+        System.out.println("## " + preset.id());
+        // Untimed run so the smallest scale is not dominated by class loading and interpretation
+        Fixtures.compile(WorkloadGenerator.generate(preset.shape(1), seed), CompilerStatistics.disabled());
+
+        List<String> phaseNames = null;
+        long previousLines = 0;
+        long previousTotal = 0;
+        for (int scale = 1; scale <= maxScale; scale *= 2) {
+            String source = WorkloadGenerator.generate(preset.shape(scale), seed);
+            long lines = source.lines().count();
+            Map<String, Long> bestTimes = measure(source);
+
+            if (phaseNames == null) {
+                phaseNames = List.copyOf(bestTimes.keySet());
+                printHeader(phaseNames);
+            }
+
+            long total = bestTimes.entrySet().stream()
+                    .filter(entry -> !entry.getKey().contains("/"))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            StringBuilder row = new StringBuilder();
+            row.append(String.format("| %5d | %7d |", scale, lines));
+            for (String phaseName : phaseNames) {
+                String time = String.format("%.2f", bestTimes.getOrDefault(phaseName, 0L) / 1e6);
+                row.append(' ').append(" ".repeat(Math.max(0, columnName(phaseName).length() - time.length()))).append(time).append(" |");
+            }
+            row.append(String.format(" %10.2f |", total / 1e6));
+            row.append(previousLines == 0 || lines == previousLines || previousTotal == 0
+                    ? "      - |"
+                    : String.format(" %6.2f |", Math.log((double) total / previousTotal) / Math.log((double) lines / previousLines)));
+            System.out.println(row);
+
+            previousLines = lines;
+            previousTotal = total;
+            if (total > budgetNanos) {
+                System.out.println("(stopping, scale " + scale + " exceeded the time budget)");
+                break;
+            }
+        }
+        System.out.println();
+    }
+
+    // Best time per phase over all repetitions
+    private Map<String, Long> measure(String source) {
+        Map<String, Long> bestTimes = new LinkedHashMap<>();
+        for (int i = 0; i < repetitions; i++) {
+            CompilerStatistics statistics = CompilerStatistics.enabled();
+            Fixtures.compile(source, statistics);
+            for (PhaseStatistics phase : statistics.phases()) {
+                bestTimes.merge(phase.name(), phase.wallTimeNanos(), Math::min);
+            }
+        }
+        return bestTimes;
+    }
+
+    private static void printHeader(List<String> phaseNames) {
+        StringBuilder header = new StringBuilder("| scale |   lines |");
+        StringBuilder separator = new StringBuilder("|------:|--------:|");
+        for (String phaseName : phaseNames) {
+            String columnName = columnName(phaseName);
+            header.append(' ').append(columnName).append(" |");
+            separator.append("-".repeat(columnName.length() + 1)).append(":|");
+        }
+        header.append("   total ms |      k |");
+        separator.append("-----------:|-------:|");
+        System.out.println(header);
+        System.out.println(separator);
+    }
+
+    // Sub-phases are shown by their last path segment, all columns are at least as wide as a formatted time
+    private static String columnName(String phaseName) {
+        return String.format("%10s", phaseName.substring(phaseName.lastIndexOf('/') + 1));
+    }
+}
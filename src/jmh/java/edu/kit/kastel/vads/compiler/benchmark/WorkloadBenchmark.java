@@ -0,0 +1,30 @@
+package edu.kit.kastel.vads.compiler.benchmark;
+
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// End-to-end compilation (without gcc) of generated workloads, see WorkloadPreset
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WorkloadBenchmark {
+    @Param({"straight-line", "deep-nesting", "live-variables", "ternary-heavy", "many-functions"})
+    public String preset;
+
+    @Param({"1", "2", "4"})
+    public int scale;
+
+    private String source;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = WorkloadGenerator.generate(WorkloadPreset.fromId(preset).shape(scale), Fixtures.DEFAULT_SEED);
+    }
+
+    @Benchmark
+    public String compile() {
+        return Fixtures.compile(source, CompilerStatistics.disabled());
+    }
+}
@@ -0,0 +1,156 @@
+package edu.kit.kastel.vads.compiler.benchmark;
+
+import java.util.Random;
+import java.util.StringJoiner;
+
+// Generates valid, terminating L2 programs of a given shape. The output only depends on shape and seed.
+// Programs avoid undefined behaviour: divisors are nonzero constants or variable expressions masked to a nonzero
+// range, never -1 since the minimum integer may occur after overflow, shift amounts are constants below 32, loops
+// count a dedicated variable up to a small bound and overflow wraps like in L2.
+// main calls every other function once, the results feed its variables or its return value.
+public final class WorkloadGenerator {
+    private static final String[] ARITHMETIC_OPERATORS = {"+", "-", "*", "&", "|", "^"};
+    private static final String[] DIVISION_OPERATORS = {"/", "%"};
+    private static final String[] SHIFT_OPERATORS = {"<<", ">>"};
+    private static final String[] COMPARISON_OPERATORS = {"<", "<=", ">", ">=", "==", "!="};
+    private static final String[] ASSIGNMENT_OPERATORS = {"=", "=", "=", "+=", "-=", "^="};
+    // Nested loops multiply, so the trip count stays small to keep deeply nested programs executable
+    private static final int MAX_LOOP_ITERATIONS = 2;
+
+    private final WorkloadShape shape;
+    private final Random random;
+    private final StringBuilder builder;
+    private int loopCounters;
+
+    private WorkloadGenerator(WorkloadShape shape, long seed) {
+        this.shape = shape;
+        this.random = new Random(seed);
+        this.builder = new StringBuilder();
+    }
+
+    public static String generate(WorkloadShape shape, long seed) {
+        return new WorkloadGenerator(shape, seed).generateProgram();
+    }
+
+    private String generateProgram() {
+        int callees = shape.functions() - 1;
+        for (int i = 0; i < callees; i++) {
+            generateFunction("f" + i, 0);
+        }
+        generateFunction("main", callees);
+        return builder.toString();
+    }
+
+    // The callees f0 to f<calls - 1> initialize the first variables, calls left over are added to the return value
+    private void generateFunction(String name, int calls) {
+        loopCounters = 0;
+        line(0, "int " + name + "() {");
+        for (int i = 0; i < shape.liveVariables(); i++) {
+            String initializer = i < calls ? "f" + i + "()" : Integer.toString(random.nextInt(1000));
+            line(1, "int v" + i + " = " + initializer + ";");
+        }
+
+        generateBlock(1, 0);
+
+        StringJoiner returnValue = new StringJoiner(" + ");
+        for (int i = 0; i < shape.liveVariables(); i++) {
+            returnValue.add("v" + i);
+        }
+        for (int i = shape.liveVariables(); i < calls; i++) {
+            returnValue.add("f" + i + "()");
+        }
+        line(1, "return " + returnValue + ";");
+        line(0, "}");
+        builder.append('\n');
+    }
+
+    private void generateBlock(int indentation, int depth) {
+        int leadingAssignments = shape.blockLength() / 2;
+        generateAssignments(indentation, leadingAssignments);
+        if (depth < shape.nestingDepth()) {
+            generateControlFlow(indentation, depth);
+        }
+        generateAssignments(indentation, shape.blockLength() - leadingAssignments);
+    }
+
+    private void generateControlFlow(int indentation, int depth) {
+        int iterations = 1 + random.nextInt(MAX_LOOP_ITERATIONS);
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                line(indentation, "if (" + generateCondition(shape.expressionDepth()) + ") {");
+                generateBlock(indentation + 1, depth + 1);
+                line(indentation, "} else {");
+                generateAssignments(indentation + 1, Math.max(1, shape.blockLength() / 2));
+                line(indentation, "}");
+            }
+            case 1 -> {
+                String counter = "c" + loopCounters++;
+                line(indentation, "int " + counter + " = 0;");
+                line(indentation, "while (" + counter + " < " + iterations + ") {");
+                generateBlock(indentation + 1, depth + 1);
+                line(indentation + 1, counter + " += 1;");
+                line(indentation, "}");
+            }
+            default -> {
+                String counter = "c" + loopCounters++;
+                line(indentation, "for (int " + counter + " = 0; " + counter + " < " + iterations + "; " + counter + " += 1) {");
+                generateBlock(indentation + 1, depth + 1);
+                line(indentation, "}");
+            }
+        }
+    }
+
+    private void generateAssignments(int indentation, int count) {
+        for (int i = 0; i < count; i++) {
+            line(indentation, randomVariable() + " " + pick(ASSIGNMENT_OPERATORS) + " "
+                    + generateExpression(shape.expressionDepth()) + ";");
+        }
+    }
+
+    private String generateExpression(int depth) {
+        if (depth == 0) {
+            return random.nextInt(4) == 0 ? Integer.toString(random.nextInt(256)) : randomVariable();
+        }
+
+        if (random.nextDouble() < shape.ternaryDensity()) {
+            return "(" + generateCondition(depth - 1) + " ? "
+                    + generateExpression(depth - 1) + " : " + generateExpression(depth - 1) + ")";
+        }
+
+        return switch (random.nextInt(8)) {
+            case 0 -> "(" + generateExpression(depth - 1) + " " + pick(DIVISION_OPERATORS) + " " + generateDivisor(depth - 1) + ")";
+            case 1 -> "(" + generateExpression(depth - 1) + " " + pick(SHIFT_OPERATORS) + " " + random.nextInt(32) + ")";
+            default -> "(" + generateExpression(depth - 1) + " " + pick(ARITHMETIC_OPERATORS) + " " + generateExpression(depth - 1) + ")";
+        };
+    }
+
+    private String generateDivisor(int depth) {
+        return switch (random.nextInt(4)) {
+            case 0 -> "(-" + (2 + random.nextInt(30)) + ")";
+            case 1 -> "((" + generateExpression(depth) + " & 255) + 1)";
+            case 2 -> "(0 - ((" + generateExpression(depth) + " & 255) + 2))";
+            default -> Integer.toString(1 + random.nextInt(31));
+        };
+    }
+
+    private String generateCondition(int depth) {
+        String comparison = generateExpression(depth) + " " + pick(COMPARISON_OPERATORS) + " " + generateExpression(depth);
+        return switch (random.nextInt(4)) {
+            case 0 -> comparison + " && " + randomVariable() + " != " + random.nextInt(256);
+            case 1 -> "!(" + comparison + ") || " + randomVariable() + " > " + random.nextInt(256);
+            default -> comparison;
+        };
+    }
+
+    private String randomVariable() {
+        return "v" + random.nextInt(shape.liveVariables());
+    }
+
+    private String pick(String[] options) {
+        return options[random.nextInt(options.length)];
+    }
+
+    private void line(int indentation, String content) {
+        builder.repeat("    ", indentation).append(content).append('\n');
+    }
+}
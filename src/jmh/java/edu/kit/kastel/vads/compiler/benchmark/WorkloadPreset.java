@@ -0,0 +1,46 @@
+package edu.kit.kastel.vads.compiler.benchmark;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+// Shapes that grow along one dimension with the scale, each targeting a specific compiler path
+public enum WorkloadPreset {
+    // Long basic blocks, no control flow: frontend and emission throughput
+    STRAIGHT_LINE("straight-line", scale -> new WorkloadShape(1, 64 * scale, 0, 8, 2, 0.1)),
+    // Deeply nested loops assigning every variable: many blocks and phis for the dominator fixpoint
+    // and the phi placement in IrPhiGenerator
+    DEEP_NESTING("deep-nesting", scale -> new WorkloadShape(1, 4, 4 * scale, 8, 1, 0.1)),
+    // Many simultaneously live variables: dense interference graphs for
+    // AasmRegisterAllocator.getSimplicialEliminationOrderedNodes and spilling
+    LIVE_VARIABLES("live-variables", scale -> new WorkloadShape(1, 8 * scale, 2, 16 * scale, 1, 0.1)),
+    // Conditional expressions create blocks and phis inside expressions
+    TERNARY_HEAVY("ternary-heavy", scale -> new WorkloadShape(1, 8 * scale, 2, 8, 3, 0.6)),
+    // Many mid-sized functions: per-function overhead of the whole pipeline
+    MANY_FUNCTIONS("many-functions", scale -> new WorkloadShape(4 * scale, 8, 3, 8, 2, 0.2));
+
+    private final String id;
+    private final IntFunction<WorkloadShape> shapeForScale;
+
+    WorkloadPreset(String id, IntFunction<WorkloadShape> shapeForScale) {
+        this.id = id;
+        this.shapeForScale = shapeForScale;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public WorkloadShape shape(int scale) {
+        if (scale < 1) {
+            throw new IllegalArgumentException("Scale must be positive");
+        }
+        return shapeForScale.apply(scale);
+    }
+
+    public static WorkloadPreset fromId(String id) {
+        return Arrays.stream(values())
+                .filter(preset -> preset.id.equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown workload preset " + id));
+    }
+}
@@ -0,0 +1,29 @@
+package edu.kit.kastel.vads.compiler.benchmark;
+
+// Knobs of the synthetic L2 programs produced by WorkloadGenerator.
+// Every block contains blockLength assignments around at most one nested if/while/for, so a function has
+// roughly (nestingDepth + 1) * blockLength statements. All liveVariables are used by the final return and
+// therefore stay live through the whole function.
+public record WorkloadShape(
+        int functions,
+        int blockLength,
+        int nestingDepth,
+        int liveVariables,
+        int expressionDepth,
+        double ternaryDensity) {
+
+    public WorkloadShape {
+        if (functions < 1) {
+            throw new IllegalArgumentException("At least one function is required");
+        }
+        if (blockLength < 0 || nestingDepth < 0 || expressionDepth < 0) {
+            throw new IllegalArgumentException("Block length, nesting depth and expression depth must not be negative");
+        }
+        if (liveVariables < 2) {
+            throw new IllegalArgumentException("At least two live variables are required");
+        }
+        if (ternaryDensity < 0 || ternaryDensity > 1) {
+            throw new IllegalArgumentException("Ternary density must be in [0, 1]");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package edu.kit.kastel.vads.compiler;
+
+import edu.kit.kastel.vads.compiler.backend.aasm.PeepholeOptimizer;
+import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocationMode;
+import edu.kit.kastel.vads.compiler.ir.SsaConstructionMode;
+import edu.kit.kastel.vads.compiler.pipeline.Assembler;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public record CommandLineOptions(
+        List<String> positionalArguments,
+        boolean printStatistics,
+        Optional<Path> statisticsFile,
+        boolean server,
+        Optional<Path> serverSocket,
+        Assembler assembler,
+        SsaConstructionMode ssaConstruction,
+        RegisterAllocationMode registerAllocation,
+        int peepholeWindow,
+        Optional<Path> batchManifest,
+        int jobs,
+        int gccJobs) {
+
+    private static final String STATISTICS_OPTION = "--stats";
+    private static final String SERVER_OPTION = "--server";
+    private static final String ASSEMBLER_OPTION = "--assembler=";
+    private static final String SSA_OPTION = "--ssa=";
+    private static final String REGALLOC_OPTION = "--regalloc=";
+    private static final String PEEPHOLE_WINDOW_OPTION = "--peephole-window=";
+    private static final String BATCH_OPTION = "--batch=";
+    private static final String JOBS_OPTION = "--jobs=";
+    private static final String GCC_JOBS_OPTION = "--gcc-jobs=";
+
+    public static CommandLineOptions parse(String[] args) {
+        List<String> positionalArguments = new ArrayList<>();
+        boolean printStatistics = false;
+        Optional<Path> statisticsFile = Optional.empty();
+        boolean server = false;
+        Optional<Path> serverSocket = Optional.empty();
+        Assembler assembler = Assembler.GCC;
+        SsaConstructionMode ssaConstruction = SsaConstructionMode.DOMINANCE_FRONTIERS;
+        RegisterAllocationMode registerAllocation = RegisterAllocationMode.CHORDAL;
+        int peepholeWindow = PeepholeOptimizer.DEFAULT_WINDOW;
+        Optional<Path> batchManifest = Optional.empty();
+        int jobs = Runtime.getRuntime().availableProcessors();
+        int gccJobs = Runtime.getRuntime().availableProcessors();
+
+        for (String arg : args) {
+            if (arg.equals(STATISTICS_OPTION)) {
+                printStatistics = true;
+            } else if (arg.startsWith(STATISTICS_OPTION + "=")) {
+                printStatistics = true;
+                statisticsFile = Optional.of(Path.of(arg.substring(STATISTICS_OPTION.length() + 1)));
+            } else if (arg.equals(SERVER_OPTION)) {
+                server = true;
+            } else if (arg.startsWith(SERVER_OPTION + "=")) {
+                server = true;
+                serverSocket = Optional.of(Path.of(arg.substring(SERVER_OPTION.length() + 1)));
+            } else if (arg.startsWith(ASSEMBLER_OPTION)) {
+                assembler = Assembler.fromId(arg.substring(ASSEMBLER_OPTION.length()));
+            } else if (arg.startsWith(SSA_OPTION)) {
+                ssaConstruction = SsaConstructionMode.fromId(arg.substring(SSA_OPTION.length()));
+            } else if (arg.startsWith(REGALLOC_OPTION)) {
+                registerAllocation = RegisterAllocationMode.fromId(arg.substring(REGALLOC_OPTION.length()));
+            } else if (arg.startsWith(PEEPHOLE_WINDOW_OPTION)) {
+                peepholeWindow = parseNonNegativeInt(arg, PEEPHOLE_WINDOW_OPTION);
+            } else if (arg.startsWith(BATCH_OPTION)) {
+                batchManifest = Optional.of(Path.of(arg.substring(BATCH_OPTION.length())));
+            } else if (arg.startsWith(JOBS_OPTION)) {
+                jobs = parsePositiveInt(arg, JOBS_OPTION);
+            } else if (arg.startsWith(GCC_JOBS_OPTION)) {
+                gccJobs = parsePositiveInt(arg, GCC_JOBS_OPTION);
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                positionalArguments.add(arg);
+            }
+        }
+
+        return new CommandLineOptions(
+                List.copyOf(positionalArguments),
+                printStatistics,
+                statisticsFile,
+                server,
+                serverSocket,
+                assembler,
+                ssaConstruction,
+                registerAllocation,
+                peepholeWindow,
+                batchManifest,
+                jobs,
+                gccJobs);
+    }
+
+    private static int parsePositiveInt(String arg, String option) {
+        int value = Integer.parseInt(arg.substring(option.length()));
+        if (value < 1) {
+            throw new IllegalArgumentException(option + " expects a positive number");
+        }
+        return value;
+    }
+
+    private static int parseNonNegativeInt(String arg, String option) {
+        int value = Integer.parseInt(arg.substring(option.length()));
+        if (value < 0) {
+            throw new IllegalArgumentException(option + " expects a non-negative number");
+        }
+        return value;
+    }
+}
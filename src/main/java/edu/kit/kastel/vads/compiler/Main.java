@@ -1,34 +1,132 @@
 package edu.kit.kastel.vads.compiler;
 
-import edu.kit.kastel.vads.compiler.frontend.parser.ParseException;
+import edu.kit.kastel.vads.compiler.batch.BatchCompiler;
+import edu.kit.kastel.vads.compiler.batch.BatchManifest;
+import edu.kit.kastel.vads.compiler.pipeline.CompilationResult;
 import edu.kit.kastel.vads.compiler.pipeline.CompilerPipeline;
 import edu.kit.kastel.vads.compiler.pipeline.CompilerPipelineRunInfo;
-import edu.kit.kastel.vads.compiler.frontend.semantic.SemanticException;
+import edu.kit.kastel.vads.compiler.server.CompileServer;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 public class Main {
     public static void main(String[] args) throws IOException {
-        if (args.length != 2) {
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.exit(3);
+            throw new AssertionError("unreachable");
+        }
+
+        if (options.server()) {
+            if (!options.positionalArguments().isEmpty() || options.printStatistics() || options.batchManifest().isPresent()) {
+                System.err.println("Invalid arguments: Server mode expects files and options per request");
+                System.exit(3);
+            }
+            runServer(options);
+            return;
+        }
+
+        CompilerStatistics statistics = options.printStatistics()
+                ? CompilerStatistics.enabled()
+                : CompilerStatistics.disabled();
+
+        if (options.batchManifest().isPresent()) {
+            if (!options.positionalArguments().isEmpty()) {
+                System.err.println("Invalid arguments: Batch mode takes its files from the manifest");
+                System.exit(3);
+            }
+            int exitCode = runBatch(options, statistics);
+            writeStatistics(options, statistics);
+            if (exitCode != 0) {
+                System.exit(exitCode);
+            }
+            return;
+        }
+
+        if (options.positionalArguments().size() != 2) {
             System.err.println("Invalid arguments: Expected one input file and one output file");
             System.exit(3);
         }
-        Path input = Path.of(args[0]);
-        Path output = Path.of(args[1]);
+        Path input = Path.of(options.positionalArguments().get(0));
+        Path output = Path.of(options.positionalArguments().get(1));
 
         CompilerPipeline pipeline = new CompilerPipeline();
-        CompilerPipelineRunInfo runInfo = new CompilerPipelineRunInfo(input, output);
+        CompilationResult result = pipeline.compile(new CompilerPipelineRunInfo(
+                input, output, statistics, options.assembler(), options.ssaConstruction(), options.registerAllocation(),
+                options.peepholeWindow()));
+        result.errorMessage().ifPresent(System.err::println);
+
+        writeStatistics(options, statistics);
+        if (!result.isSuccess()) {
+            System.exit(result.exitCode());
+        }
+    }
+
+    // Prints one "<exit code>\t<input>[\t<error>]" line per manifest entry and returns the exit code of the first failure
+    private static int runBatch(CommandLineOptions options, CompilerStatistics statistics) throws IOException {
+        BatchManifest manifest;
         try {
-            pipeline.run(runInfo);
-        } catch (ParseException e) {
-            e.printStackTrace();
-            System.exit(42);
-            throw new AssertionError("unreachable");
-        } catch (SemanticException e) {
-            e.printStackTrace();
-            System.exit(7);
-            throw new AssertionError("unreachable");
+            manifest = BatchManifest.read(options.batchManifest().get());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid manifest: " + e.getMessage());
+            return 3;
+        }
+
+        // The files of the template are replaced by those of every entry
+        Path manifestPath = options.batchManifest().get();
+        CompilerPipelineRunInfo runInfoTemplate = new CompilerPipelineRunInfo(
+                manifestPath, manifestPath, statistics, options.assembler(), options.ssaConstruction(),
+                options.registerAllocation(), options.peepholeWindow());
+        BatchCompiler batchCompiler = new BatchCompiler(new CompilerPipeline(), runInfoTemplate, options.jobs(), options.gccJobs());
+        List<CompilationResult> results = batchCompiler.compile(manifest, (entry, result) -> {
+            String line = result.exitCode() + "\t" + entry.sourceFilePath();
+            System.out.println(result.errorMessage().map(message -> line + "\t" + message).orElse(line));
+        });
+
+        return results.stream()
+                .filter(result -> !result.isSuccess())
+                .findFirst()
+                .map(CompilationResult::exitCode)
+                .orElse(0);
+    }
+
+    private static void runServer(CommandLineOptions options) throws IOException {
+        CompileServer server = new CompileServer(new CompilerPipeline());
+        if (options.serverSocket().isPresent()) {
+            server.serveUnixSocket(options.serverSocket().get());
+            return;
+        }
+
+        // Responses own stdout, anything else printed by the compiler goes to stderr
+        PrintStream responseStream = System.out;
+        System.setOut(System.err);
+        BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        Writer responses = new OutputStreamWriter(responseStream, StandardCharsets.UTF_8);
+        server.serve(requests, responses);
+    }
+
+    private static void writeStatistics(CommandLineOptions options, CompilerStatistics statistics) throws IOException {
+        if (!options.printStatistics()) {
+            return;
+        }
+
+        if (options.statisticsFile().isPresent()) {
+            Files.writeString(options.statisticsFile().get(), statistics.toJson() + System.lineSeparator());
+        } else {
+            System.out.println(statistics.toJson());
         }
     }
 }
@@ -2,19 +2,25 @@ package edu.kit.kastel.vads.compiler.backend.aasm;
 
 import edu.kit.kastel.vads.compiler.backend.regalloc.Register;
 import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocator;
+import edu.kit.kastel.vads.compiler.ir.DenseMap;
 import edu.kit.kastel.vads.compiler.ir.IrBlock;
 import edu.kit.kastel.vads.compiler.ir.IrFunction;
 import edu.kit.kastel.vads.compiler.ir.IrFunctionPrinter;
+import edu.kit.kastel.vads.compiler.ir.IrInstruction;
+import edu.kit.kastel.vads.compiler.ir.LoopNesting;
 import edu.kit.kastel.vads.compiler.ir.SSAValue;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.IrMoveInstruction;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.IrPhi;
+import edu.kit.kastel.vads.compiler.ir.dataflow.IrOperands;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 
 public class AasmRegisterAllocator implements RegisterAllocator {
+    private static final int NO_COLOR = -1;
+    private static final int NO_NODE = -1;
+    // Deeper loops weigh as much as this depth, which keeps the spill costs far from overflowing
+    private static final int MAX_WEIGHTED_LOOP_DEPTH = 8;
 
     private final LivenessAnalysis livenessAnalysis;
 
@@ -24,126 +30,267 @@ public class AasmRegisterAllocator implements RegisterAllocator {
 
     @Override
     public RegisterAllocationResult allocateRegisters(IrFunction irFunction, LivenessAnalysisResult livenessAnalysisResult) {
-        InterferenceGraph interferenceGraph = InterferenceGraph.createFrom(irFunction.blocks(), livenessAnalysisResult);
+        InterferenceGraph interferenceGraph = InterferenceGraph.createFrom(irFunction, livenessAnalysisResult);
 
-        List<SSAValue> simplicialEliminationOrderedNodes = getSimplicialEliminationOrderedNodes(interferenceGraph);
+        int[] simplicialEliminationOrderedNodes = getSimplicialEliminationOrderedNodes(irFunction, interferenceGraph);
 
-        Map<SSAValue, Integer> coloring = colorInterferenceGraph(interferenceGraph, simplicialEliminationOrderedNodes);
+        int[][] movePartners = collectMovePartners(irFunction, interferenceGraph);
 
-        ColorToRegisterMappingResult mappingResult = mapColorsToRegisters(coloring);
+        int[] coloring = colorInterferenceGraph(irFunction, interferenceGraph, movePartners, simplicialEliminationOrderedNodes);
+
+        long[] spillCosts = computeSpillCosts(irFunction);
+        RegisterConstraints constraints = RegisterConstraints.compute(irFunction, livenessAnalysisResult);
+
+        ColorToRegisterMappingResult mappingResult
+                = mapColorsToRegisters(irFunction, coloring, spillCosts, constraints, simplicialEliminationOrderedNodes);
 
 
         return new RegisterAllocationResult(livenessAnalysisResult, mappingResult.mapping(), mappingResult.tempRegister(), mappingResult.registers());
     }
 
-    private List<SSAValue> getSimplicialEliminationOrderedNodes(
-            InterferenceGraph interferenceGraphRef) {
-        InterferenceGraph interferenceGraph = interferenceGraphRef.copy();
+    // Maximum cardinality search with a bucket queue: every node sits in the bucket of its weight (the number of
+    // already ordered neighbors), buckets are doubly linked lists in arrays. Picking the next node and moving a
+    // neighbor one bucket up are O(1), the highest non-empty bucket only drops when it runs empty, so the whole
+    // search is O(V + E).
+    private int[] getSimplicialEliminationOrderedNodes(IrFunction irFunction, InterferenceGraph interferenceGraph) {
+        int valueCount = irFunction.ssaValueCount();
+        int[] weights = new int[valueCount];
+        int[] next = new int[valueCount];
+        int[] previous = new int[valueCount];
+        int[] bucketHeads = new int[valueCount + 1];
+        Arrays.fill(bucketHeads, NO_NODE);
+        boolean[] ordered = new boolean[valueCount];
+
+        int nodeCount = 0;
+        // Inserted in descending id order so that ties are broken by the smallest id
+        for (int node = valueCount - 1; node >= 0; node--) {
+            if (interferenceGraph.containsNode(node)) {
+                insertIntoBucket(node, 0, bucketHeads, next, previous);
+                nodeCount++;
+            }
+        }
 
-        List<SSAValue> simplicialEliminationOrderedNodes = new ArrayList<>();
-        Map<SSAValue, Integer> nodeWeights = interferenceGraph
-                .getNodes()
-                .stream()
-                .collect(Collectors.toMap(Function.identity(),_ -> 0));
+        int[] simplicialEliminationOrderedNodes = new int[nodeCount];
+        int maximumWeight = 0;
+        for (int position = 0; position < nodeCount; position++) {
+            while (bucketHeads[maximumWeight] == NO_NODE) {
+                maximumWeight--;
+            }
 
-        Optional<SSAValue> maximumCardinalityNode = interferenceGraph.getMaximumCardinalityNode(nodeWeights);
+            int node = bucketHeads[maximumWeight];
+            removeFromBucket(node, maximumWeight, bucketHeads, next, previous);
+            ordered[node] = true;
+            simplicialEliminationOrderedNodes[position] = node;
 
-        while (maximumCardinalityNode.isPresent()) {
-            simplicialEliminationOrderedNodes.add(maximumCardinalityNode.get());
-            for (SSAValue neighbor : interferenceGraph.neighborsOf(maximumCardinalityNode.get())) {
-                nodeWeights.put(neighbor, nodeWeights.get(neighbor) + 1);
+            int[] neighbors = interferenceGraph.neighbors(node);
+            for (int i = 0; i < interferenceGraph.degree(node); i++) {
+                int neighbor = neighbors[i];
+                if (ordered[neighbor]) {
+                    continue;
+                }
+                removeFromBucket(neighbor, weights[neighbor], bucketHeads, next, previous);
+                weights[neighbor]++;
+                insertIntoBucket(neighbor, weights[neighbor], bucketHeads, next, previous);
+                maximumWeight = Math.max(maximumWeight, weights[neighbor]);
             }
-            interferenceGraph.removeNode(maximumCardinalityNode.get());
-
-            maximumCardinalityNode = interferenceGraph.getMaximumCardinalityNode(nodeWeights);
         }
 
         return simplicialEliminationOrderedNodes;
     }
 
-    private Map<SSAValue, Integer> colorInterferenceGraph(InterferenceGraph interferenceGraphRef, List<SSAValue> simplicialEliminationOrderedNodes) {
-        Map<SSAValue, Optional<Integer>> coloring = simplicialEliminationOrderedNodes
-                .stream()
-                .collect(Collectors.toMap(x -> x, _ -> Optional.empty()));
-        int maxUsedColor = 0;
-
-        for (SSAValue node : simplicialEliminationOrderedNodes) {
-            Set<Integer> usedNeighborColors = interferenceGraphRef
-                    .neighborsOf(node)
-                    .stream()
-                    .map(x -> coloring.getOrDefault(x, Optional.empty()))
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .collect(Collectors.toSet());
-
-            boolean colorFound = false;
-            for (int i = 0; i <= maxUsedColor; i++) {
-                if (!usedNeighborColors.contains(i)) {
-                    colorFound = true;
-                    coloring.put(node, Optional.of(i));
-                    break;
+    private static void insertIntoBucket(int node, int bucket, int[] bucketHeads, int[] next, int[] previous) {
+        int head = bucketHeads[bucket];
+        next[node] = head;
+        previous[node] = NO_NODE;
+        if (head != NO_NODE) {
+            previous[head] = node;
+        }
+        bucketHeads[bucket] = node;
+    }
+
+    private static void removeFromBucket(int node, int bucket, int[] bucketHeads, int[] next, int[] previous) {
+        if (previous[node] != NO_NODE) {
+            next[previous[node]] = next[node];
+        } else {
+            bucketHeads[bucket] = next[node];
+        }
+        if (next[node] != NO_NODE) {
+            previous[next[node]] = previous[node];
+        }
+    }
+
+    // Greedy coloring in elimination order. The colors of the neighbors are marked in one bitmask,
+    // which is cleared again through the same neighbors instead of being allocated per node.
+    // Coloring is biased towards the colors of move related nodes: the colored neighbors of a node form a clique in
+    // this order, so any color that is already in use and not taken by a neighbor keeps the coloring optimal and
+    // lets the move between both values vanish.
+    private int[] colorInterferenceGraph(
+            IrFunction irFunction,
+            InterferenceGraph interferenceGraph,
+            int[][] movePartners,
+            int[] simplicialEliminationOrderedNodes) {
+        int[] coloring = new int[irFunction.ssaValueCount()];
+        Arrays.fill(coloring, NO_COLOR);
+        BitSet usedNeighborColors = new BitSet();
+
+        for (int node : simplicialEliminationOrderedNodes) {
+            int[] neighbors = interferenceGraph.neighbors(node);
+            int degree = interferenceGraph.degree(node);
+            for (int i = 0; i < degree; i++) {
+                int neighborColor = coloring[neighbors[i]];
+                if (neighborColor != NO_COLOR) {
+                    usedNeighborColors.set(neighborColor);
                 }
             }
 
-            if (!colorFound) {
-                maxUsedColor++;
-                coloring.put(node, Optional.of(maxUsedColor));
+            int preferredColor = preferredColor(node, movePartners, coloring, usedNeighborColors);
+            coloring[node] = preferredColor != NO_COLOR ? preferredColor : usedNeighborColors.nextClearBit(0);
+
+            for (int i = 0; i < degree; i++) {
+                int neighborColor = coloring[neighbors[i]];
+                if (neighborColor != NO_COLOR) {
+                    usedNeighborColors.clear(neighborColor);
+                }
             }
         }
 
-        return coloring
-                .entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
+        return coloring;
     }
 
-    private ColorToRegisterMappingResult mapColorsToRegisters(Map<SSAValue, Integer> colors) {
-        Map<Integer, HashSet<SSAValue>> invertedMap = colors.entrySet()
-                .stream()
-                .collect(Collectors.groupingBy(
-                        Map.Entry::getValue,
-                        Collectors.mapping(Map.Entry::getKey,
-                                Collectors.toCollection(HashSet::new))));
-        Map<SSAValue, Register> colorToRegisterMapping = new HashMap<>();
+    // Color of an already colored move partner that no neighbor uses, or NO_COLOR
+    private static int preferredColor(int node, int[][] movePartners, int[] coloring, BitSet usedNeighborColors) {
+        for (int partner : movePartners[node]) {
+            int partnerColor = coloring[partner];
+            if (partnerColor != NO_COLOR && !usedNeighborColors.get(partnerColor)) {
+                return partnerColor;
+            }
+        }
+        return NO_COLOR;
+    }
 
-        Set<SSAValue> remainingNodes = new HashSet<>(colors.keySet());
+    // Source and target of every move that do not interfere, both directions
+    private static int[][] collectMovePartners(IrFunction irFunction, InterferenceGraph interferenceGraph) {
+        int valueCount = irFunction.ssaValueCount();
+        int[] partnerCounts = new int[valueCount];
+        List<IrMoveInstruction> coalescableMoves = new ArrayList<>();
+        for (IrBlock block : irFunction.blocks()) {
+            for (IrInstruction instruction : block.getInstructions()) {
+                if (instruction instanceof IrMoveInstruction move && isCoalescable(move, interferenceGraph)) {
+                    coalescableMoves.add(move);
+                    partnerCounts[move.source().id()]++;
+                    partnerCounts[move.target().id()]++;
+                }
+            }
+        }
 
-        Set<Register> remainingRegisters = new HashSet<>(X86Register.getGeneralPurposeRegisters());
+        int[][] movePartners = new int[valueCount][];
+        for (int value = 0; value < valueCount; value++) {
+            movePartners[value] = new int[partnerCounts[value]];
+            partnerCounts[value] = 0;
+        }
+        for (IrMoveInstruction move : coalescableMoves) {
+            int source = move.source().id();
+            int target = move.target().id();
+            movePartners[source][partnerCounts[source]++] = target;
+            movePartners[target][partnerCounts[target]++] = source;
+        }
+        return movePartners;
+    }
 
-        Register tempRegister = remainingRegisters.stream().findFirst().get();
-        remainingRegisters.remove(tempRegister); // Remove one register which can later be used as a temp register
+    private static boolean isCoalescable(IrMoveInstruction move, InterferenceGraph interferenceGraph) {
+        int source = move.source().id();
+        int target = move.target().id();
+        return source != target
+                && interferenceGraph.containsNode(source)
+                && interferenceGraph.containsNode(target)
+                && !interferenceGraph.interferes(source, target);
+    }
 
-        HashSet<Register> registers = new HashSet<>();
+    // Estimated cost of keeping each value on the stack: every definition and use counts 10^(loop depth) times
+    private static long[] computeSpillCosts(IrFunction irFunction) {
+        LoopNesting loopNesting = LoopNesting.compute(irFunction);
+        long[] spillCosts = new long[irFunction.ssaValueCount()];
+        for (IrBlock block : irFunction.blocks()) {
+            long weight = loopWeight(loopNesting.depth(block));
+            for (IrInstruction instruction : block.getInstructions()) {
+                IrOperands.definition(instruction).ifPresent(value -> spillCosts[value.id()] += weight);
+                IrOperands.forEachUse(instruction, value -> spillCosts[value.id()] += weight);
+            }
+        }
+        return spillCosts;
+    }
+
+    private static long loopWeight(int loopDepth) {
+        long weight = 1;
+        for (int i = 0; i < Math.min(loopDepth, MAX_WEIGHTED_LOOP_DEPTH); i++) {
+            weight *= 10;
+        }
+        return weight;
+    }
 
+    // Every color gets its own register or stack slot. The registers go to the colors with the highest summed
+    // spill cost of their values, ties are broken by the smaller color. A color takes a register none of its values
+    // is forbidden to use, and the implicitly used registers are offered first, since they fit the fewest colors.
+    private ColorToRegisterMappingResult mapColorsToRegisters(
+            IrFunction irFunction,
+            int[] colors,
+            long[] spillCosts,
+            RegisterConstraints constraints,
+            int[] nodes) {
+        DenseMap<SSAValue, Register> colorToRegisterMapping = new DenseMap<>(irFunction.ssaValueCount());
+
+        List<Register> remainingRegisters = new ArrayList<>(X86Register.getGeneralPurposeRegisters());
+
+        Register tempRegister = RegisterConstraints.chooseTempRegister(remainingRegisters);
+        // The temp register stays reserved even without spills: a - b into the register of b, divisions and
+        // multiplications by constants and comparisons of two stack slots need it, which only the final assignment
+        // decides. Functions using at most 13 registers lose nothing by it.
+        remainingRegisters.remove(tempRegister);
+
+        int colorCount = 0;
+        for (int node : nodes) {
+            colorCount = Math.max(colorCount, colors[node] + 1);
+        }
+        long[] colorCosts = new long[colorCount];
+        int[] forbiddenRegisters = new int[colorCount];
+        int[] preferredRegisters = new int[colorCount];
+        for (int node : nodes) {
+            colorCosts[colors[node]] += spillCosts[node];
+            forbiddenRegisters[colors[node]] |= constraints.forbiddenRegisters(node);
+            preferredRegisters[colors[node]] |= constraints.preferredRegisters(node);
+        }
+
+        List<Integer> colorsByCost = new ArrayList<>(colorCount);
+        for (int color = 0; color < colorCount; color++) {
+            colorsByCost.add(color);
+        }
+        colorsByCost.sort(Comparator.comparingLong((Integer color) -> colorCosts[color]).reversed());
+
+        List<Register> freeRegisters = new ArrayList<>(X86Register.getImplicitlyUsedRegisters());
+        remainingRegisters.stream().filter(register -> !freeRegisters.contains(register)).forEach(freeRegisters::add);
+        Register[] registersByColor = new Register[colorCount];
         int numberOfStackSlots = 0;
-        // Get
-        while (!remainingNodes.isEmpty()) {
-            SSAValue node = remainingNodes.stream().findFirst().get();
-            Optional<Register> nextRegister = remainingRegisters.stream().findFirst();
-
-            Register nodeRegister;
-            if (nextRegister.isPresent()) {
-                nodeRegister = nextRegister.get();
+        for (int color : colorsByCost) {
+            Optional<Register> register = RegisterConstraints.choose(
+                    freeRegisters, forbiddenRegisters[color], preferredRegisters[color]);
+            if (register.isPresent()) {
+                registersByColor[color] = register.get();
+                freeRegisters.remove(register.get());
             } else {
-                nodeRegister = new StackSlot(numberOfStackSlots);
+                registersByColor[color] = new StackSlot(numberOfStackSlots);
                 numberOfStackSlots++;
             }
+        }
 
+        HashSet<Register> registers = new HashSet<>();
+        for (int node : nodes) {
+            Register nodeRegister = registersByColor[colors[node]];
             registers.add(nodeRegister);
-
-            Integer color = colors.get(node);
-            HashSet<SSAValue> affectedNodes = invertedMap.get(color);
-            for (SSAValue affectedNode : affectedNodes) {
-                remainingNodes.remove(affectedNode);
-                colorToRegisterMapping.put(affectedNode, nodeRegister);
-            }
-
-            remainingNodes.remove(node);
-            remainingRegisters.remove(nodeRegister);
+            colorToRegisterMapping.put(irFunction.ssaValue(node), nodeRegister);
         }
 
         return new ColorToRegisterMappingResult(colorToRegisterMapping, tempRegister, registers);
     }
 
-    private record ColorToRegisterMappingResult(Map<SSAValue, Register> mapping, Register tempRegister, Set<Register> registers) { }
+    private record ColorToRegisterMappingResult(DenseMap<SSAValue, Register> mapping, Register tempRegister, Set<Register> registers) { }
 }
@@ -0,0 +1,138 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.ir.BlockOrder;
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+import edu.kit.kastel.vads.compiler.ir.IrBranchInstruction;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
+import edu.kit.kastel.vads.compiler.ir.IrInstruction;
+import edu.kit.kastel.vads.compiler.ir.IrJumpInstruction;
+import edu.kit.kastel.vads.compiler.ir.LoopNesting;
+import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.IrMoveInstruction;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Order in which the blocks of a function are emitted, so that the code generator can fall through to the next
+// block instead of jumping. There is no profile, so the successor staying in the deepest loop is taken as the hot
+// one: blocks are chained by appending the hot successor of the last block until it has none left to place.
+// Loops testing their condition in the header are rotated. The chain enters the body directly and the header is
+// placed behind the block jumping back to it, so an iteration ends with a single conditional branch into the body.
+// Only blocks reachable from the start block are laid out, the start block comes first. Blocks left without code
+// after register allocation are bypassed before, their predecessors are redirected to where they jump.
+public final class BlockLayout {
+    private BlockLayout() {
+    }
+
+    public static List<IrBlock> compute(IrFunction function, RegisterAllocationResult allocationResult) {
+        bypassEmptyBlocks(function, allocationResult);
+
+        LoopNesting loopNesting = LoopNesting.compute(function);
+        List<IrBlock> reversePostorder = BlockOrder.reversePostorder(function.startBlock());
+        List<IrBlock> layout = new ArrayList<>(reversePostorder.size());
+        BitSet placed = new BitSet();
+        // Rotated headers wait for the end of their loop body, chains only start there if no latch reached them
+        BitSet rotatedHeaders = new BitSet();
+
+        for (IrBlock block : reversePostorder) {
+            if (!placed.get(block.id()) && !rotatedHeaders.get(block.id())) {
+                placeChain(block, layout, placed, rotatedHeaders, loopNesting);
+            }
+        }
+        for (IrBlock block : reversePostorder) {
+            if (!placed.get(block.id())) {
+                placeChain(block, layout, placed, rotatedHeaders, loopNesting);
+            }
+        }
+
+        return layout;
+    }
+
+    private static void bypassEmptyBlocks(IrFunction function, RegisterAllocationResult allocationResult) {
+        for (IrBlock block : List.copyOf(function.blocks())) {
+            if (block == function.startBlock() || !emitsOnlyJump(block, allocationResult)) {
+                continue;
+            }
+
+            IrBlock target = ((IrJumpInstruction) block.getInstructions().getLast()).jumpTarget();
+            if (target == block) {
+                continue;
+            }
+            for (IrBlock predecessor : List.copyOf(block.getPredecessorBlocks())) {
+                predecessor.redirectSuccessor(block, target);
+            }
+        }
+    }
+
+    // Moves within one register are not emitted
+    private static boolean emitsOnlyJump(IrBlock block, RegisterAllocationResult allocationResult) {
+        List<IrInstruction> instructions = block.getInstructions();
+        if (!(instructions.getLast() instanceof IrJumpInstruction)) {
+            return false;
+        }
+        for (int i = 0; i < instructions.size() - 1; i++) {
+            if (!(instructions.get(i) instanceof IrMoveInstruction move)
+                    || allocationResult.nodeToRegisterMapping().get(move.source())
+                    != allocationResult.nodeToRegisterMapping().get(move.target())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void placeChain(
+            IrBlock chainStart,
+            List<IrBlock> layout,
+            BitSet placed,
+            BitSet rotatedHeaders,
+            LoopNesting loopNesting) {
+        IrBlock block = chainStart;
+        while (block != null) {
+            placed.set(block.id());
+            layout.add(block);
+
+            IrBlock next = hotSuccessor(block, placed, loopNesting);
+            if (next != null && isRotatable(block, next, loopNesting)) {
+                IrBlock bodyEntry = hotSuccessorInLoop(next, placed, loopNesting);
+                if (bodyEntry != null) {
+                    rotatedHeaders.set(next.id());
+                    next = bodyEntry;
+                }
+            }
+            block = next;
+        }
+    }
+
+    // Entering a loop whose header ends with the loop condition
+    private static boolean isRotatable(IrBlock block, IrBlock successor, LoopNesting loopNesting) {
+        return loopNesting.isLoopHeader(successor)
+                && !loopNesting.isInLoop(block, successor)
+                && successor.getInstructions().getLast() instanceof IrBranchInstruction;
+    }
+
+    // Unplaced successor in the deepest loop, the first one on ties
+    private static @Nullable IrBlock hotSuccessor(IrBlock block, BitSet placed, LoopNesting loopNesting) {
+        IrBlock hottest = null;
+        for (IrBlock successor : block.getSuccessorBlocks()) {
+            if (!placed.get(successor.id())
+                    && (hottest == null || loopNesting.depth(successor) > loopNesting.depth(hottest))) {
+                hottest = successor;
+            }
+        }
+        return hottest;
+    }
+
+    private static @Nullable IrBlock hotSuccessorInLoop(IrBlock header, BitSet placed, LoopNesting loopNesting) {
+        IrBlock hottest = null;
+        for (IrBlock successor : header.getSuccessorBlocks()) {
+            if (successor != header
+                    && !placed.get(successor.id())
+                    && loopNesting.isInLoop(successor, header)
+                    && (hottest == null || loopNesting.depth(successor) > loopNesting.depth(hottest))) {
+                hottest = successor;
+            }
+        }
+        return hottest;
+    }
+}
@@ -3,18 +3,21 @@ package edu.kit.kastel.vads.compiler.backend.aasm;
 import edu.kit.kastel.vads.compiler.ir.*;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
 public record CodeGenerationContext(RegisterAllocationResult registerAllocationResult,
-                                          Map<SSAValue, IrValueProducingInstruction> ssaValueByProducingInstructions,
-                                          Map<SSAValue, Set<IrInstruction>> ssaValueByUsingInstructions) {
+                                          DenseMap<SSAValue, IrValueProducingInstruction> ssaValueByProducingInstructions,
+                                          DenseMap<SSAValue, Set<IrInstruction>> ssaValueByUsingInstructions,
+                                          ImmediateOperands immediateOperands,
+                                          DenseMap<SSAValue, Set<SSAValue>> valuesLiveAcrossCalls) {
 
     public static CodeGenerationContext createForFunction(IrFunction function, RegisterAllocationResult registerAllocationResult) {
-        Map<SSAValue, IrValueProducingInstruction> ssaValueByProducingInstructions = new HashMap<>();
-        Map<SSAValue, Set<IrInstruction>> ssaValueByUsingInstructions = new HashMap<>();
+        DenseMap<SSAValue, IrValueProducingInstruction> ssaValueByProducingInstructions = new DenseMap<>(function.ssaValueCount());
+        DenseMap<SSAValue, Set<IrInstruction>> ssaValueByUsingInstructions = new DenseMap<>(function.ssaValueCount());
+        // Keyed by the value of the call
+        DenseMap<SSAValue, Set<SSAValue>> valuesLiveAcrossCalls = new DenseMap<>();
         for (IrBlock block : function.blocks()) {
             for (IrInstruction instruction : block.getInstructions()) {
                 if (instruction instanceof IrValueProducingInstruction valueProducingInstruction) {
@@ -25,7 +28,9 @@ public record CodeGenerationContext(RegisterAllocationResult registerAllocationR
         }
 
         for (IrBlock block : function.blocks()) {
-            for (IrInstruction instruction : block.getInstructions()) {
+            List<IrInstruction> instructions = block.getInstructions();
+            for (int i = 0; i < instructions.size(); i++) {
+                IrInstruction instruction = instructions.get(i);
                 switch (instruction) {
                     case IrReturnInstruction returnInstruction:
                         ssaValueByUsingInstructions.get(returnInstruction.src()).add(instruction);
@@ -40,8 +45,19 @@ public record CodeGenerationContext(RegisterAllocationResult registerAllocationR
                     case IrUnaryOperationInstruction unaryOperationInstruction:
                         ssaValueByUsingInstructions.get(unaryOperationInstruction.src()).add(instruction);
                         break;
-                    case IrJumpInstruction _, IrBoolConstantInstruction _, IrIntConstantInstruction _:
+                    case IrJumpInstruction _, IrBoolConstantInstruction _, IrIntConstantInstruction _, IrParameterInstruction _:
                         continue;
+                    case IrCallInstruction callInstruction:
+                        for (SSAValue argument : callInstruction.arguments()) {
+                            ssaValueByUsingInstructions.get(argument).add(instruction);
+                        }
+                        // Live before and after the call, arguments used for the last time may share a register
+                        // with the result. A call never ends a block.
+                        LivenessAnalysisResult livenessAnalysisResult = registerAllocationResult.livenessAnalysisResult();
+                        Set<SSAValue> liveAcross = new HashSet<>(livenessAnalysisResult.getLiveNodesAt(block, instruction));
+                        liveAcross.retainAll(livenessAnalysisResult.getLiveNodesAt(block, instructions.get(i + 1)));
+                        valuesLiveAcrossCalls.put(callInstruction.target(), liveAcross);
+                        break;
                     case IrMoveInstruction irMoveInstruction:
                         ssaValueByUsingInstructions.get(irMoveInstruction.source()).add(instruction);
                         break;
@@ -51,6 +67,11 @@ public record CodeGenerationContext(RegisterAllocationResult registerAllocationR
             }
         }
 
-        return new CodeGenerationContext(registerAllocationResult, ssaValueByProducingInstructions, ssaValueByUsingInstructions);
+        return new CodeGenerationContext(
+                registerAllocationResult,
+                ssaValueByProducingInstructions,
+                ssaValueByUsingInstructions,
+                registerAllocationResult.livenessAnalysisResult().immediateOperands(),
+                valuesLiveAcrossCalls);
     }
 }
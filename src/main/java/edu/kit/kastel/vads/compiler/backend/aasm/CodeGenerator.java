@@ -1,10 +1,13 @@
 package edu.kit.kastel.vads.compiler.backend.aasm;
 
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
 import edu.kit.kastel.vads.compiler.ir.IrBranchInstruction;
 import edu.kit.kastel.vads.compiler.ir.IrJumpInstruction;
 import edu.kit.kastel.vads.compiler.ir.IrReturnInstruction;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
 
+import java.util.Optional;
+
 public interface CodeGenerator {
 
     void generateStackPointerPush();
@@ -40,10 +43,16 @@ public interface CodeGenerator {
     void generateNegation(CodeGenerationContext generationContext, IrNegateInstruction instruction);
     void generateLogicalNot(CodeGenerationContext generationContext, IrLogicalNotInstruction instruction);
 
+    void generateCall(CodeGenerationContext generationContext, IrCallInstruction instruction);
+    void generateParameter(CodeGenerationContext generationContext, IrParameterInstruction instruction);
     void generateReturn(CodeGenerationContext generationContext, IrReturnInstruction instruction);
 
-    void generateBranch(CodeGenerationContext generationContext, IrBranchInstruction instruction);
-    void generateJump(CodeGenerationContext generationContext, IrJumpInstruction instruction);
+    // The block emitted right after the current one, jumps to it fall through
+    void generateBranch(CodeGenerationContext generationContext, IrBranchInstruction instruction, Optional<IrBlock> nextBlock);
+    void generateJump(CodeGenerationContext generationContext, IrJumpInstruction instruction, Optional<IrBlock> nextBlock);
 
     X86InstructionGenerator getX86InstructionGenerator();
+
+    // Creates the same code generator writing to another instruction generator, e.g. one per function
+    CodeGenerator withInstructionGenerator(X86InstructionGenerator instructionGenerator);
 }
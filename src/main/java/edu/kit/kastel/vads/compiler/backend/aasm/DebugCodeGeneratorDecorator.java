@@ -1,11 +1,14 @@
 package edu.kit.kastel.vads.compiler.backend.aasm;
 
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
 import edu.kit.kastel.vads.compiler.ir.IrBranchInstruction;
 import edu.kit.kastel.vads.compiler.ir.IrInstruction;
 import edu.kit.kastel.vads.compiler.ir.IrJumpInstruction;
 import edu.kit.kastel.vads.compiler.ir.IrReturnInstruction;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
 
+import java.util.Optional;
+
 public final class DebugCodeGeneratorDecorator implements CodeGenerator {
 
     private final CodeGenerator codeGenerator;
@@ -166,6 +169,18 @@ public final class DebugCodeGeneratorDecorator implements CodeGenerator {
         codeGenerator.generateLogicalNot(generationContext, instruction);
     }
 
+    @Override
+    public void generateCall(CodeGenerationContext generationContext, IrCallInstruction instruction) {
+        generateLineDebugging(instruction);
+        codeGenerator.generateCall(generationContext, instruction);
+    }
+
+    @Override
+    public void generateParameter(CodeGenerationContext generationContext, IrParameterInstruction instruction) {
+        generateLineDebugging(instruction);
+        codeGenerator.generateParameter(generationContext, instruction);
+    }
+
     @Override
     public void generateReturn(CodeGenerationContext generationContext, IrReturnInstruction instruction) {
         generateLineDebugging(instruction);
@@ -173,15 +188,15 @@ public final class DebugCodeGeneratorDecorator implements CodeGenerator {
     }
 
     @Override
-    public void generateBranch(CodeGenerationContext generationContext, IrBranchInstruction instruction) {
+    public void generateBranch(CodeGenerationContext generationContext, IrBranchInstruction instruction, Optional<IrBlock> nextBlock) {
         generateLineDebugging(instruction);
-        codeGenerator.generateBranch(generationContext, instruction);
+        codeGenerator.generateBranch(generationContext, instruction, nextBlock);
     }
 
     @Override
-    public void generateJump(CodeGenerationContext generationContext, IrJumpInstruction instruction) {
+    public void generateJump(CodeGenerationContext generationContext, IrJumpInstruction instruction, Optional<IrBlock> nextBlock) {
         generateLineDebugging(instruction);
-        codeGenerator.generateJump(generationContext, instruction);
+        codeGenerator.generateJump(generationContext, instruction, nextBlock);
     }
 
     @Override
@@ -189,6 +204,11 @@ public final class DebugCodeGeneratorDecorator implements CodeGenerator {
         return codeGenerator.getX86InstructionGenerator();
     }
 
+    @Override
+    public CodeGenerator withInstructionGenerator(X86InstructionGenerator instructionGenerator) {
+        return new DebugCodeGeneratorDecorator(codeGenerator.withInstructionGenerator(instructionGenerator));
+    }
+
 
     private void generateLineDebugging(IrInstruction instruction) {
         /*if (node.debugInfo() instanceof DebugInfo.SourceInfo(edu.kit.kastel.vads.compiler.Span span)) {
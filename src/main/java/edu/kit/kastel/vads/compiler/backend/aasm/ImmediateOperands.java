@@ -0,0 +1,128 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
+import edu.kit.kastel.vads.compiler.ir.IrInstruction;
+import edu.kit.kastel.vads.compiler.ir.SSAValue;
+import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
+import edu.kit.kastel.vads.compiler.ir.dataflow.IrOperands;
+
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Constants the code generator encodes as immediate operands instead of materializing them in a register.
+// A constant is folded when every use takes an immediate: the source of a move, a call argument, the right operand
+// of sub, of the ordered comparisons and of shifts, and either operand of add, imul, and, or, xor, == and != unless
+// both are constants (the code generator swaps a constant left operand to the right). All of them take a 32 bit
+// immediate, shift counts are masked to five bits like the hardware does with CL. Divisors are folded if
+// StrengthReduction replaces the idiv, which has no immediate form. Folded constants get no register, liveness and
+// register allocation neither see their definition nor their uses, and their constant instruction emits nothing.
+public final class ImmediateOperands {
+    private static final ImmediateOperands NONE = new ImmediateOperands(new BitSet(), new int[0]);
+
+    private final BitSet immediates;
+    private final int[] constants;
+
+    private ImmediateOperands(BitSet immediates, int[] constants) {
+        this.immediates = immediates;
+        this.constants = constants;
+    }
+
+    public static ImmediateOperands none() {
+        return NONE;
+    }
+
+    public static ImmediateOperands compute(IrFunction function) {
+        BitSet constantValues = new BitSet();
+        int[] constants = new int[function.ssaValueCount()];
+        for (IrBlock block : function.blocks()) {
+            for (IrInstruction instruction : block.getInstructions()) {
+                switch (instruction) {
+                    case IrIntConstantInstruction constant -> {
+                        constantValues.set(constant.target().id());
+                        constants[constant.target().id()] = constant.constValue();
+                    }
+                    case IrBoolConstantInstruction constant -> {
+                        constantValues.set(constant.target().id());
+                        constants[constant.target().id()] = constant.constValue() ? 1 : 0;
+                    }
+                    default -> { }
+                }
+            }
+        }
+
+        BitSet immediates = (BitSet) constantValues.clone();
+        for (IrBlock block : function.blocks()) {
+            for (IrInstruction instruction : block.getInstructions()) {
+                switch (instruction) {
+                    case IrMoveInstruction _, IrCallInstruction _ -> { }
+                    case IrAddInstruction add -> clearCommutative(add, constantValues, immediates);
+                    case IrMulInstruction multiplication -> clearCommutative(multiplication, constantValues, immediates);
+                    case IrBitwiseAndInstruction and -> clearCommutative(and, constantValues, immediates);
+                    case IrBitwiseOrInstruction or -> clearCommutative(or, constantValues, immediates);
+                    case IrBitwiseXorInstruction xor -> clearCommutative(xor, constantValues, immediates);
+                    case IrEqualsInstruction equals -> clearCommutative(equals, constantValues, immediates);
+                    case IrUnequalsInstruction unequals -> clearCommutative(unequals, constantValues, immediates);
+                    case IrSubInstruction _, IrLessThanInstruction _, IrLessThanOrEqualInstruction _,
+                         IrGreaterThanInstruction _, IrGreaterThanOrEqualInstruction _,
+                         IrLeftShiftInstruction _, IrRightShiftInstruction _ ->
+                            immediates.clear(((IrBinaryOperationInstruction) instruction).leftSrc().id());
+                    case IrDivInstruction division -> clearDivision(division, constants, immediates);
+                    case IrModInstruction modulo -> clearDivision(modulo, constants, immediates);
+                    default -> IrOperands.forEachUse(instruction, value -> immediates.clear(value.id()));
+                }
+            }
+        }
+
+        return new ImmediateOperands(immediates, constants);
+    }
+
+    // At most one operand is encoded as immediate, the right one if both are constants
+    private static void clearCommutative(IrBinaryOperationInstruction instruction, BitSet constantValues, BitSet immediates) {
+        if (constantValues.get(instruction.rightSrc().id())) {
+            immediates.clear(instruction.leftSrc().id());
+        }
+    }
+
+    private static void clearDivision(IrBinaryOperationInstruction division, int[] constants, BitSet immediates) {
+        immediates.clear(division.leftSrc().id());
+        if (!StrengthReduction.isReducibleDivisor(constants[division.rightSrc().id()])) {
+            immediates.clear(division.rightSrc().id());
+        }
+    }
+
+    public boolean isImmediate(SSAValue value) {
+        return immediates.get(value.id());
+    }
+
+    public int value(SSAValue value) {
+        return constants[value.id()];
+    }
+
+    public IntegerConstantParameter parameter(SSAValue value) {
+        return new IntegerConstantParameter(value(value));
+    }
+
+    public int count() {
+        return immediates.cardinality();
+    }
+
+    // Copy of the folded values, indexed by value id
+    public BitSet values() {
+        return (BitSet) immediates.clone();
+    }
+
+    // Uses of values that are kept in a register or stack slot
+    public void forEachUse(IrInstruction instruction, Consumer<SSAValue> action) {
+        IrOperands.forEachUse(instruction, value -> {
+            if (!isImmediate(value)) {
+                action.accept(value);
+            }
+        });
+    }
+
+    public Optional<SSAValue> definition(IrInstruction instruction) {
+        return IrOperands.definition(instruction).filter(value -> !isImmediate(value));
+    }
+}
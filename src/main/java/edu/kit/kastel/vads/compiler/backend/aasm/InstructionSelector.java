@@ -1,18 +1,30 @@
 package edu.kit.kastel.vads.compiler.backend.aasm;
 
+import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocationMode;
+import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocator;
 import edu.kit.kastel.vads.compiler.ir.*;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 public class InstructionSelector {
 
-    private static String NON_EXECUTABLE_STACK =
-            ".section .note.GNU-stack,\"\",@progbits\n";
+    private final CompilerStatistics statistics;
+    private final RegisterAllocationMode registerAllocation;
+    // 0 disables the peephole optimizer
+    private final int peepholeWindow;
+
+    public InstructionSelector(CompilerStatistics statistics, RegisterAllocationMode registerAllocation, int peepholeWindow) {
+        this.statistics = statistics;
+        this.registerAllocation = registerAllocation;
+        this.peepholeWindow = peepholeWindow;
+    }
 
     public void generateCode(IrFile file, CodeGenerator codeGenerator, String sourceFileName) {
         X86InstructionGenerator instructionGenerator = codeGenerator.getX86InstructionGenerator();
@@ -35,67 +47,190 @@ public class InstructionSelector {
                 .generateMoveInstruction(new IntegerConstantParameter(0x3C), X86Register.REG_AX, BitSize.BIT_64)
                 .generateSyscall();
 
-        for (IrFunction function : file.functions()) {
+        // Every function is emitted into its own buffer, joining them in source order keeps the output deterministic.
+        // Buffers are joined as soon as all functions before them are done, so streaming output overlaps with the workers.
+        Optional<String> parentPhase = statistics.currentPhasePath();
+        file.functions()
+                .parallelStream()
+                .map(function -> generateFunctionCode(function, codeGenerator, parentPhase))
+                .forEachOrdered(instructionGenerator::generateFrom);
+
+        instructionGenerator.generateNonExecutableStack();
+    }
+
+
+    private X86InstructionGenerator generateFunctionCode(IrFunction function, CodeGenerator codeGenerator, Optional<String> parentPhase) {
+        MachineFunctionBuilder machineFunctionBuilder = new MachineFunctionBuilder();
+        CodeGenerator functionCodeGenerator = codeGenerator.withInstructionGenerator(machineFunctionBuilder);
 
-            LivenessAnalysis livenessAnalysis = new LivenessAnalysis();
-            AasmRegisterAllocator allocator = new AasmRegisterAllocator(livenessAnalysis);
+        LivenessAnalysis livenessAnalysis = new LivenessAnalysis();
+        RegisterAllocator allocator = switch (registerAllocation) {
+            case CHORDAL -> new AasmRegisterAllocator(livenessAnalysis);
+            case LINEAR_SCAN -> new LinearScanRegisterAllocator();
+        };
 
-            deSSA(function);
+        statistics.measure(parentPhase, "deSSA", () -> deSSA(function));
 
-            //new IrFunctionPrinter().print(function);
+        //new IrFunctionPrinter().print(function);
 
-            LivenessAnalysisResult livenessAnalysisResult = livenessAnalysis.run(function);
+        ImmediateOperands immediateOperands = statistics.measure(parentPhase, "immediateOperands",
+                () -> ImmediateOperands.compute(function));
+        statistics.count("immediateOperands/foldedConstants", immediateOperands.count());
 
-            RegisterAllocationResult allocationResult = allocator.allocateRegisters(function, livenessAnalysisResult);
+        LivenessAnalysisResult livenessAnalysisResult = statistics.measure(parentPhase, "livenessAnalysis",
+                () -> livenessAnalysis.run(function, immediateOperands));
 
+        RegisterAllocationResult allocationResult = statistics.measure(parentPhase, "registerAllocation",
+                () -> allocator.allocateRegisters(function, livenessAnalysisResult));
+        countAllocationResults(function, allocationResult);
+
+        List<IrBlock> blockLayout = statistics.measure(parentPhase, "blockLayout",
+                () -> BlockLayout.compute(function, allocationResult));
+
+        MachineFunction machineFunction = statistics.measure(parentPhase, "emission", () -> {
             CodeGenerationContext codeGenerationContext
                     = CodeGenerationContext.createForFunction(function, allocationResult);
 
-            generateFunction(function, codeGenerator, codeGenerationContext);
-        }
+            generateFunction(function, blockLayout, functionCodeGenerator, codeGenerationContext);
+            return machineFunctionBuilder.build();
+        });
 
-        instructionGenerator.generateFromString(NON_EXECUTABLE_STACK);
+        if (peepholeWindow > 0) {
+            PeepholeOptimizer peepholeOptimizer = new PeepholeOptimizer(peepholeWindow);
+            statistics.measure(parentPhase, "peephole", () -> peepholeOptimizer.run(machineFunction));
+            peepholeOptimizer.countHits(statistics);
+        }
+        statistics.count("machineCode/instructions", machineFunction.instructionCount());
+
+        // Prints or encodes the machine function, depending on the kind of the file's instruction generator
+        return statistics.measure(parentPhase, "output", () -> {
+            X86InstructionGenerator functionInstructionGenerator = codeGenerator.getX86InstructionGenerator().createEmpty();
+            machineFunction.generate(functionInstructionGenerator);
+            return functionInstructionGenerator;
+        });
     }
 
+    // Replaces the phis by copies on their incoming edges. Critical edges are split first, so the copies only run on
+    // the edge they belong to. The copies of one edge happen in parallel and are ordered by sequentializeParallelCopy.
+    void deSSA(IrFunction function) {
+        int nextBlockId = function.blockIdBound();
+        for (IrBlock block : List.copyOf(function.blocks())) {
+            Map<IrBlock, List<PhiMove>> phiMovesPerBlock = new LinkedHashMap<>();
+            for (IrInstruction instruction : block.getInstructions()) {
+                if (instruction instanceof IrPhi phi) {
+                    for (IrPhi.IrPhiItem phiItem : phi.sources()) {
+                        phiMovesPerBlock.computeIfAbsent(phiItem.block(), _ -> new ArrayList<>())
+                                .add(new PhiMove(phi.target(), phiItem.value()));
+                    }
+                }
+            }
 
-    private void deSSA(IrFunction function) {
-        for (IrBlock block : function.blocks()) {
-            Set<IrPhi> blockPhis = block.getInstructions()
-                    .stream()
-                    .filter(irInstruction -> irInstruction instanceof IrPhi)
-                    .map(irInstruction -> (IrPhi) irInstruction)
-                    .collect(Collectors.toSet());
-
-            if (blockPhis.isEmpty()) {
+            if (phiMovesPerBlock.isEmpty()) {
                 continue;
             }
 
-            Map<IrBlock, Set<PhiMove>> phiMovesPerBlock = new HashMap<>();
-            for (IrPhi phi : blockPhis) {
-                for (IrPhi.IrPhiItem phiItem : phi.sources()) {
-                    phiMovesPerBlock.computeIfAbsent(phiItem.block(), __ -> new HashSet<>())
-                            .add(new PhiMove(phi.target(), phiItem.value()));
+            block.removePhis();
+
+            for (Map.Entry<IrBlock, List<PhiMove>> entry : phiMovesPerBlock.entrySet()) {
+                List<IrMoveInstruction> moves = sequentializeParallelCopy(function, entry.getValue());
+                if (moves.isEmpty()) {
+                    continue;
+                }
+
+                IrBlock copyBlock = entry.getKey();
+                if (copyBlock.getSuccessorBlocks().size() > 1) {
+                    IrBlock edgeBlock = new IrBlock(nextBlockId, copyBlock.name() + "_edge_" + nextBlockId);
+                    nextBlockId++;
+                    copyBlock.splitEdgeTo(block, edgeBlock);
+                    function.blocks().add(edgeBlock);
+                    copyBlock = edgeBlock;
+                }
+
+                // Last instruction is always jump. -> Insert before jump
+                for (IrMoveInstruction move : moves) {
+                    copyBlock.insertInstruction(copyBlock.getInstructions().size() - 1, move);
                 }
             }
+        }
+    }
 
-            block.removePhis();
+    // Orders the copies so every target is read by the other copies before it is overwritten. When only cycles are
+    // left, the target of one copy is saved in a fresh value that its readers use instead, which breaks the cycle
+    // with a single extra move. Copies of a value to itself are dropped.
+    private static List<IrMoveInstruction> sequentializeParallelCopy(IrFunction function, List<PhiMove> parallelCopy) {
+        List<PhiMove> pending = new ArrayList<>();
+        Map<SSAValue, Integer> pendingReads = new HashMap<>();
+        for (PhiMove phiMove : parallelCopy) {
+            if (phiMove.target() != phiMove.source()) {
+                pending.add(phiMove);
+                pendingReads.merge(phiMove.source(), 1, Integer::sum);
+            }
+        }
 
-            for (Map.Entry<IrBlock, Set<PhiMove>> entry : phiMovesPerBlock.entrySet()) {
-                IrBlock targetBlock = entry.getKey();
-                for (PhiMove phiMove : entry.getValue()) {
-                    IrMoveInstruction moveToInsert = new IrMoveInstruction(phiMove.target(), phiMove.source());
-                    // Last instruction is always jump. -> Insert before jump
-                    // TODO: Parallel read resolving
-                    targetBlock.insertInstruction(targetBlock.getInstructions().size() - 1, moveToInsert);
+        List<IrMoveInstruction> moves = new ArrayList<>(pending.size());
+        while (!pending.isEmpty()) {
+            int readyIndex = -1;
+            for (int i = 0; i < pending.size() && readyIndex < 0; i++) {
+                if (!pendingReads.containsKey(pending.get(i).target())) {
+                    readyIndex = i;
                 }
             }
+
+            if (readyIndex >= 0) {
+                PhiMove phiMove = pending.remove(readyIndex);
+                moves.add(new IrMoveInstruction(phiMove.target(), phiMove.source()));
+                pendingReads.computeIfPresent(phiMove.source(), (_, reads) -> reads > 1 ? reads - 1 : null);
+                continue;
+            }
+
+            SSAValue cycleValue = pending.getFirst().target();
+            SSAValue savedValue = function.ssaValues().generateNewSSAValue(cycleValue.type(), Optional.empty());
+            moves.add(new IrMoveInstruction(savedValue, cycleValue));
+            pendingReads.put(savedValue, pendingReads.remove(cycleValue));
+            pending.replaceAll(phiMove -> phiMove.source() == cycleValue
+                    ? new PhiMove(phiMove.target(), savedValue)
+                    : phiMove);
         }
+        return moves;
     }
 
     private record PhiMove(SSAValue target, SSAValue source) {}
 
+    // Moves whose source and target share a register are not emitted
+    private void countAllocationResults(IrFunction function, RegisterAllocationResult allocationResult) {
+        if (!statistics.isEnabled()) {
+            return;
+        }
+
+        long spilledValues = allocationResult.nodeToRegisterMapping().values()
+                .stream()
+                .filter(register -> register instanceof StackSlot)
+                .count();
+        statistics.count("registerAllocation/spilledValues", spilledValues);
+
+        long moves = 0;
+        long eliminatedMoves = 0;
+        for (IrBlock block : function.blocks()) {
+            for (IrInstruction instruction : block.getInstructions()) {
+                if (instruction instanceof IrMoveInstruction move) {
+                    moves++;
+                    if (allocationResult.nodeToRegisterMapping().get(move.source())
+                            == allocationResult.nodeToRegisterMapping().get(move.target())) {
+                        eliminatedMoves++;
+                    }
+                }
+            }
+        }
+        statistics.count("registerAllocation/moves", moves);
+        statistics.count("registerAllocation/eliminatedMoves", eliminatedMoves);
+    }
 
-    private void generateFunction(IrFunction function, CodeGenerator codeGenerator, CodeGenerationContext codeGenerationContext) {
+
+    void generateFunction(
+            IrFunction function,
+            List<IrBlock> blockLayout,
+            CodeGenerator codeGenerator,
+            CodeGenerationContext codeGenerationContext) {
         codeGenerator
                 .getX86InstructionGenerator()
                 .generateLabel(function.startBlock().name());
@@ -108,42 +243,36 @@ public class InstructionSelector {
             codeGenerator.generateStackAllocation(numberOfStackSlots);
         }
 
-        Set<IrBlock> visitedBlocks = new HashSet<>();
-
-        generateInstructionsForBlock(function.startBlock(), visitedBlocks, codeGenerator, codeGenerationContext);
-    }
-
-    private void generateInstructionsForBlock(IrBlock block, Set<IrBlock> processedBlocks, CodeGenerator codeGenerator, CodeGenerationContext codeGenerationContext) {
-        for (IrInstruction inst : block.getInstructions()) {
-            generateInstruction(inst, codeGenerator, codeGenerationContext);
-        }
-
-        processedBlocks.add(block);
-
-        for (IrBlock successor : block.getSuccessorBlocks()) {
-            if (processedBlocks.contains(successor)) {
-                continue;
+        // The start block comes first in the layout, its label is the function label
+        for (int i = 0; i < blockLayout.size(); i++) {
+            IrBlock block = blockLayout.get(i);
+            if (i > 0) {
+                codeGenerator
+                        .getX86InstructionGenerator()
+                        .generateLabel(block.name());
             }
 
-            codeGenerator
-                    .getX86InstructionGenerator()
-                    .generateLabel(successor.name());
-
-            generateInstructionsForBlock(successor, processedBlocks, codeGenerator, codeGenerationContext);
+            Optional<IrBlock> nextBlock = i + 1 < blockLayout.size() ? Optional.of(blockLayout.get(i + 1)) : Optional.empty();
+            for (IrInstruction inst : block.getInstructions()) {
+                generateInstruction(inst, nextBlock, codeGenerator, codeGenerationContext);
+            }
         }
     }
 
-    // TODO: Check that shifts use the %cl register
-    private void generateInstruction(IrInstruction instruction, CodeGenerator codeGenerator, CodeGenerationContext codeGenerationContext) {
+    private void generateInstruction(
+            IrInstruction instruction,
+            Optional<IrBlock> nextBlock,
+            CodeGenerator codeGenerator,
+            CodeGenerationContext codeGenerationContext) {
         switch (instruction) {
             case IrJumpInstruction jump:
-                codeGenerator.generateJump(codeGenerationContext, jump);
+                codeGenerator.generateJump(codeGenerationContext, jump, nextBlock);
                 break;
             case IrReturnInstruction returnInstruction:
                 codeGenerator.generateReturn(codeGenerationContext, returnInstruction);
                 break;
             case IrBranchInstruction branchInstruction:
-                codeGenerator.generateBranch(codeGenerationContext, branchInstruction);
+                codeGenerator.generateBranch(codeGenerationContext, branchInstruction, nextBlock);
                 break;
             case IrAddInstruction addInstruction:
                 codeGenerator.generateAdd(codeGenerationContext, addInstruction);
@@ -178,6 +307,12 @@ public class InstructionSelector {
             case IrIntConstantInstruction irIntConstantInstruction:
                 codeGenerator.generateConstantInstruction(codeGenerationContext, irIntConstantInstruction);
                 break;
+            case IrCallInstruction irCallInstruction:
+                codeGenerator.generateCall(codeGenerationContext, irCallInstruction);
+                break;
+            case IrParameterInstruction irParameterInstruction:
+                codeGenerator.generateParameter(codeGenerationContext, irParameterInstruction);
+                break;
             case IrLeftShiftInstruction irLeftShiftInstruction:
                 codeGenerator.generateLeftShift(codeGenerationContext, irLeftShiftInstruction);
                 break;
@@ -1,113 +1,190 @@
 package edu.kit.kastel.vads.compiler.backend.aasm;
 
-import edu.kit.kastel.vads.compiler.ir.IrBlock;
-import edu.kit.kastel.vads.compiler.ir.IrInstruction;
-import edu.kit.kastel.vads.compiler.ir.SSAValue;
-import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.IrValueProducingInstruction;
+import edu.kit.kastel.vads.compiler.ir.*;
+import org.jspecify.annotations.Nullable;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+// Undirected interference graph over the values of one function, nodes are addressed by value id.
+// Neighbors are kept in adjacency arrays. Membership of an edge is answered by a triangular bit matrix,
+// which needs n^2 / 2 bits and is therefore only built for functions up to MAX_MATRIX_NODES values.
+// Larger graphs sort their adjacency arrays once and answer membership by binary search.
 public final class InterferenceGraph {
-    private final Map<SSAValue, HashSet<SSAValue>> adjacencyList;
-
-    public InterferenceGraph() {
-        adjacencyList = new HashMap<>();
+    private static final int MAX_MATRIX_NODES = 1 << 13;
+    private static final int INITIAL_ADJACENCY_CAPACITY = 4;
+    private static final int[] NO_NEIGHBORS = new int[0];
+
+    private final IrFunction function;
+    private final BitSet nodes;
+    private final long @Nullable [] matrix;
+    private final int[][] adjacency;
+    private final int[] degrees;
+    private boolean sorted;
+
+    public InterferenceGraph(IrFunction function) {
+        int valueCount = function.ssaValueCount();
+        this.function = function;
+        this.nodes = new BitSet(valueCount);
+        this.matrix = valueCount <= MAX_MATRIX_NODES
+                ? new long[(int) (((long) valueCount * (valueCount - 1) / 2 + 63) / 64)]
+                : null;
+        this.adjacency = new int[valueCount][];
+        this.degrees = new int[valueCount];
+        Arrays.fill(adjacency, NO_NEIGHBORS);
     }
 
     public void addNode(SSAValue n) {
-        if (!adjacencyList.containsKey(n)) {
-            adjacencyList.put(n, new HashSet<>());
-        }
+        nodes.set(n.id());
     }
 
     public Set<SSAValue> getNodes() {
-        return Collections.unmodifiableSet(adjacencyList.keySet());
+        return Collections.unmodifiableSet(new DenseSet<>(function::ssaValue, nodes));
+    }
+
+    public boolean containsNode(int node) {
+        return nodes.get(node);
     }
 
     public void addEdge(SSAValue from, SSAValue to) {
+        addEdge(from.id(), to.id());
+    }
+
+    public void addEdge(int from, int to) {
         if (from == to) {
             throw new IllegalArgumentException("Cannot add edge to the same node"); // Graph is irreflexive
         }
 
-        if (!adjacencyList.containsKey(from)) {
+        if (!nodes.get(from)) {
             throw new IllegalArgumentException("Graph does not contain from node");
         }
 
-        if (!adjacencyList.containsKey(to)) {
+        if (!nodes.get(to)) {
             throw new IllegalArgumentException("Graph does not contain to node");
         }
 
-        adjacencyList.get(from).add(to);
-        adjacencyList.get(to).add(from); // Undirected graph
-    }
-
-    public Set<SSAValue> neighborsOf(SSAValue n) {
-        if (!adjacencyList.containsKey(n)) {
-            throw new IllegalArgumentException("Graph does not contain node " + n);
+        if (matrix != null) {
+            long bit = matrixIndex(from, to);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((matrix[word] & mask) != 0) {
+                return;
+            }
+            matrix[word] |= mask;
         }
 
-        return Collections.unmodifiableSet(adjacencyList.get(n));
+        append(from, to);
+        append(to, from); // Undirected graph
+        sorted = false;
+    }
+
+    public boolean interferes(SSAValue first, SSAValue second) {
+        return interferes(first.id(), second.id());
     }
 
-    public void removeNode(SSAValue n) {
-        for (SSAValue nn : adjacencyList.get(n)) {
-            HashSet<SSAValue> nnEdges = adjacencyList.get(nn);
-            nnEdges.remove(n);
+    public boolean interferes(int first, int second) {
+        if (first == second) {
+            return false;
         }
-        adjacencyList.remove(n);
+        if (matrix != null) {
+            long bit = matrixIndex(first, second);
+            return (matrix[(int) (bit >>> 6)] & 1L << bit) != 0;
+        }
+
+        ensureSorted();
+        return Arrays.binarySearch(adjacency[first], 0, degrees[first], second) >= 0;
     }
 
-    public Optional<SSAValue> getMaximumCardinalityNode(Map<SSAValue, Integer> cardinalities) {
-        return adjacencyList
-                .entrySet()
-                .stream()
-                .max(Comparator.comparingInt(x -> cardinalities.get(x.getKey())))
-                .map(Map.Entry::getKey);
+    public int degree(int node) {
+        ensureSorted();
+        return degrees[node];
     }
 
-    private InterferenceGraph(Map<SSAValue, HashSet<SSAValue>> adjacencyList) {
-        this.adjacencyList = adjacencyList;
+    // Neighbor ids of the node, only the first degree(node) entries are valid
+    public int[] neighbors(int node) {
+        ensureSorted();
+        return adjacency[node];
     }
 
-    public InterferenceGraph copy() {
-        Map<SSAValue, HashSet<SSAValue>> adjacencyListCopy = adjacencyList
-                .entrySet()
-                .stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> new HashSet<>(entry.getValue())));
+    public List<SSAValue> neighborsOf(SSAValue n) {
+        if (!nodes.get(n.id())) {
+            throw new IllegalArgumentException("Graph does not contain node " + n);
+        }
 
-        return new InterferenceGraph(adjacencyListCopy);
+        int[] neighbors = neighbors(n.id());
+        List<SSAValue> result = new ArrayList<>(degrees[n.id()]);
+        for (int i = 0; i < degrees[n.id()]; i++) {
+            result.add(function.ssaValue(neighbors[i]));
+        }
+        return result;
     }
 
-    public static InterferenceGraph createFrom(Collection<IrBlock> blocks, LivenessAnalysisResult livenessAnalysisResult) {
-        InterferenceGraph interferenceGraph = new InterferenceGraph();
+    public static InterferenceGraph createFrom(IrFunction function, LivenessAnalysisResult livenessAnalysisResult) {
+        InterferenceGraph interferenceGraph = new InterferenceGraph(function);
 
-        // Add all nodes
-        for (IrBlock block : blocks) {
+        // Add all nodes, constants encoded as immediates get none
+        ImmediateOperands immediateOperands = livenessAnalysisResult.immediateOperands();
+        for (IrBlock block : function.blocks()) {
             for (IrInstruction instruction : block.getInstructions()) {
-                if (instruction instanceof IrValueProducingInstruction valueProducingInstruction) {
-                    interferenceGraph.addNode(valueProducingInstruction.target());
-                }
+                immediateOperands.definition(instruction).ifPresent(interferenceGraph::addNode);
             }
         }
 
-        // Add edges
-        for (IrBlock block : blocks) {
-            Set<SSAValue> liveAtSuccessor = livenessAnalysisResult.getBlockLiveOut(block);
+        // Add edges, a definition interferes with every value live right after it.
+        // Each block is scanned once backwards starting from its live-out set.
+        for (IrBlock block : function.blocks()) {
+            BitSet live = livenessAnalysisResult.copyBlockLiveOut(block);
             for (IrInstruction instruction : block.getInstructions().reversed()) {
-                if (instruction instanceof IrValueProducingInstruction valueProducingInstruction) {
-                    liveAtSuccessor
-                            .stream()
-                            .filter(x -> valueProducingInstruction.target() != x)
-                            .forEach(x -> interferenceGraph.addEdge(x, valueProducingInstruction.target()));
-                }
-
-                liveAtSuccessor = livenessAnalysisResult.getLiveNodesAt(instruction);
+                immediateOperands.definition(instruction).ifPresent(definition -> {
+                    int target = definition.id();
+                    for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+                        if (id != target) {
+                            interferenceGraph.addEdge(id, target);
+                        }
+                    }
+                    live.clear(target);
+                });
+
+                immediateOperands.forEachUse(instruction, value -> live.set(value.id()));
             }
         }
 
         return interferenceGraph;
     }
+
+    private void append(int node, int neighbor) {
+        int[] neighbors = adjacency[node];
+        if (degrees[node] == neighbors.length) {
+            neighbors = Arrays.copyOf(neighbors, Math.max(INITIAL_ADJACENCY_CAPACITY, neighbors.length * 2));
+            adjacency[node] = neighbors;
+        }
+        neighbors[degrees[node]++] = neighbor;
+    }
+
+    // Without the matrix duplicate edges are only removed here, with it the arrays are duplicate free already
+    private void ensureSorted() {
+        if (sorted) {
+            return;
+        }
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            int[] neighbors = adjacency[node];
+            Arrays.sort(neighbors, 0, degrees[node]);
+            if (matrix == null) {
+                int unique = 0;
+                for (int i = 0; i < degrees[node]; i++) {
+                    if (unique == 0 || neighbors[unique - 1] != neighbors[i]) {
+                        neighbors[unique++] = neighbors[i];
+                    }
+                }
+                degrees[node] = unique;
+            }
+        }
+        sorted = true;
+    }
+
+    // Position of the pair in the lower triangle, row by row
+    private static long matrixIndex(int first, int second) {
+        long row = Math.max(first, second);
+        long column = Math.min(first, second);
+        return row * (row - 1) / 2 + column;
+    }
 }
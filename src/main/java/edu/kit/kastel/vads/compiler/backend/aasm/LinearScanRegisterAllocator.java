@@ -0,0 +1,182 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.backend.regalloc.Register;
+import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocator;
+import edu.kit.kastel.vads.compiler.ir.BlockOrder;
+import edu.kit.kastel.vads.compiler.ir.DenseMap;
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
+import edu.kit.kastel.vads.compiler.ir.IrInstruction;
+import edu.kit.kastel.vads.compiler.ir.SSAValue;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+// Linear scan over live intervals (Poletto and Sarkar). Instructions are numbered in reverse postorder of their blocks,
+// and every value gets a single interval from its first to its last live position. Lifetime holes are not tracked.
+// Intervals are visited by start position. A value whose interval ends latest is spilled to a stack slot for its
+// whole lifetime when no register it may use is free. Runs in O(n log n) in the number of instructions and values,
+// without building an interference graph.
+public class LinearScanRegisterAllocator implements RegisterAllocator {
+    private static final int UNUSED = -1;
+
+    @Override
+    public RegisterAllocationResult allocateRegisters(IrFunction function, LivenessAnalysisResult livenessAnalysisResult) {
+        int valueCount = function.ssaValueCount();
+        int[] intervalStarts = new int[valueCount];
+        int[] intervalEnds = new int[valueCount];
+        Arrays.fill(intervalStarts, Integer.MAX_VALUE);
+        Arrays.fill(intervalEnds, UNUSED);
+        computeIntervals(function, livenessAnalysisResult, intervalStarts, intervalEnds);
+
+        RegisterConstraints constraints = RegisterConstraints.compute(function, livenessAnalysisResult);
+        // Implicitly used registers come first, they fit the fewest values
+        Deque<Register> freeRegisters = new ArrayDeque<>(X86Register.getImplicitlyUsedRegisters());
+        List<Register> otherRegisters = new ArrayList<>(X86Register.getGeneralPurposeRegisters());
+        otherRegisters.removeAll(freeRegisters);
+        Register tempRegister = RegisterConstraints.chooseTempRegister(otherRegisters);
+        otherRegisters.remove(tempRegister); // Kept free to be used as a temp register
+        freeRegisters.addAll(otherRegisters);
+
+        DenseMap<SSAValue, Register> mapping = new DenseMap<>(valueCount);
+        Set<Register> registers = new HashSet<>();
+        List<Long> spilled = new ArrayList<>();
+        // Values currently holding a register, ordered by the end of their interval
+        TreeSet<Long> active = new TreeSet<>();
+
+        for (long startKey : sortedByStart(intervalStarts, intervalEnds)) {
+            int value = (int) startKey;
+            int start = (int) (startKey >>> 32);
+            expire(active, start, function, mapping, freeRegisters::push);
+
+            SSAValue ssaValue = function.ssaValue(value);
+            long endKey = key(intervalEnds[value], value);
+            int forbiddenRegisters = constraints.forbiddenRegisters(value);
+            Optional<Register> freeRegister = RegisterConstraints.choose(
+                    freeRegisters, forbiddenRegisters, constraints.preferredRegisters(value));
+            if (freeRegister.isPresent()) {
+                freeRegisters.remove(freeRegister.get());
+                mapping.put(ssaValue, freeRegister.get());
+                registers.add(freeRegister.get());
+                active.add(endKey);
+                continue;
+            }
+
+            int spilledValue = value;
+            // The active interval that lives longest and holds a register this value may use hands it over
+            for (long activeKey : active.tailSet(endKey, false).descendingSet()) {
+                Register register = mapping.get(function.ssaValue((int) activeKey));
+                if (!RegisterConstraints.contains(forbiddenRegisters, register)) {
+                    spilledValue = (int) activeKey;
+                    active.remove(activeKey);
+                    mapping.put(ssaValue, register);
+                    active.add(endKey);
+                    break;
+                }
+            }
+            spilled.add(key(intervalStarts[spilledValue], spilledValue));
+        }
+
+        assignStackSlots(function, spilled, intervalEnds, mapping, registers);
+
+        return new RegisterAllocationResult(livenessAnalysisResult, mapping, tempRegister, registers);
+    }
+
+    // Spilled values keep their stack slot for their whole interval, which may have started before they were spilled.
+    // Slots are therefore shared in a second scan over the spilled intervals only.
+    private static void assignStackSlots(
+            IrFunction function,
+            List<Long> spilled,
+            int[] intervalEnds,
+            DenseMap<SSAValue, Register> mapping,
+            Set<Register> registers) {
+        spilled.sort(null);
+        Deque<Register> freeStackSlots = new ArrayDeque<>();
+        TreeSet<Long> active = new TreeSet<>();
+        int stackSlotCount = 0;
+        for (long startKey : spilled) {
+            int value = (int) startKey;
+            expire(active, (int) (startKey >>> 32), function, mapping, freeStackSlots::push);
+
+            Register stackSlot = freeStackSlots.isEmpty() ? new StackSlot(stackSlotCount++) : freeStackSlots.pop();
+            mapping.put(function.ssaValue(value), stackSlot);
+            registers.add(stackSlot);
+            active.add(key(intervalEnds[value], value));
+        }
+    }
+
+    // A value is live from its definition to its last use, and across every block it is live-in or live-out at.
+    // Constants encoded as immediates get no interval.
+    private static void computeIntervals(
+            IrFunction function,
+            LivenessAnalysisResult livenessAnalysisResult,
+            int[] intervalStarts,
+            int[] intervalEnds) {
+        ImmediateOperands immediateOperands = livenessAnalysisResult.immediateOperands();
+        int position = 0;
+        for (IrBlock block : BlockOrder.reversePostorder(function)) {
+            List<IrInstruction> instructions = block.getInstructions();
+            int blockStart = position;
+            int blockEnd = position + Math.max(instructions.size(), 1) - 1;
+            position = blockEnd + 1;
+
+            BitSet live = livenessAnalysisResult.copyBlockLiveOut(block);
+            for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+                extend(id, blockEnd, intervalStarts, intervalEnds);
+            }
+
+            for (int i = instructions.size() - 1; i >= 0; i--) {
+                int instructionPosition = blockStart + i;
+                IrInstruction instruction = instructions.get(i);
+                immediateOperands.definition(instruction).ifPresent(value -> {
+                    extend(value.id(), instructionPosition, intervalStarts, intervalEnds);
+                    live.clear(value.id());
+                });
+                immediateOperands.forEachUse(instruction, value -> {
+                    extend(value.id(), instructionPosition, intervalStarts, intervalEnds);
+                    live.set(value.id());
+                });
+            }
+
+            for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+                extend(id, blockStart, intervalStarts, intervalEnds);
+            }
+        }
+    }
+
+    private static void extend(int value, int position, int[] intervalStarts, int[] intervalEnds) {
+        intervalStarts[value] = Math.min(intervalStarts[value], position);
+        intervalEnds[value] = Math.max(intervalEnds[value], position);
+    }
+
+    // Intervals are closed, a value ending at the start position still conflicts with the new one
+    private static void expire(
+            TreeSet<Long> active,
+            int start,
+            IrFunction function,
+            DenseMap<SSAValue, Register> mapping,
+            Consumer<Register> release) {
+        while (!active.isEmpty() && (int) (active.first() >>> 32) < start) {
+            int value = (int) (long) active.pollFirst();
+            release.accept(mapping.get(function.ssaValue(value)));
+        }
+    }
+
+    private static long[] sortedByStart(int[] intervalStarts, int[] intervalEnds) {
+        long[] keys = new long[intervalStarts.length];
+        int count = 0;
+        for (int value = 0; value < intervalStarts.length; value++) {
+            if (intervalEnds[value] != UNUSED) {
+                keys[count++] = key(intervalStarts[value], value);
+            }
+        }
+        long[] sorted = Arrays.copyOf(keys, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // Position in the upper half so that keys sort by position first, value id in the lower half
+    private static long key(int position, int value) {
+        return (long) position << 32 | value;
+    }
+}
@@ -1,44 +1,75 @@
 package edu.kit.kastel.vads.compiler.backend.aasm;
 
+import edu.kit.kastel.vads.compiler.ir.DenseSet;
 import edu.kit.kastel.vads.compiler.ir.IrBlock;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
 import edu.kit.kastel.vads.compiler.ir.IrInstruction;
 import edu.kit.kastel.vads.compiler.ir.SSAValue;
+import edu.kit.kastel.vads.compiler.ir.dataflow.DataflowResult;
 
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
 public final class LivenessAnalysisResult {
-    private final Map<IrInstruction, Set<SSAValue>> livenessInformation;
-    private final Map<IrBlock, LivenessAnalysis.BlockAnalysisResults> blockAnalysisResults;
+    private final IrFunction function;
+    private final DataflowResult blockAnalysisResults;
+    private final ImmediateOperands immediateOperands;
 
-    public LivenessAnalysisResult(
-            Map<IrInstruction, Set<SSAValue>> livenessInformation,
-            Map<IrBlock, LivenessAnalysis.BlockAnalysisResults> blockAnalysisResults) {
-        this.livenessInformation = livenessInformation;
+    public LivenessAnalysisResult(IrFunction function, DataflowResult blockAnalysisResults, ImmediateOperands immediateOperands) {
+        this.function = function;
         this.blockAnalysisResults = blockAnalysisResults;
+        this.immediateOperands = immediateOperands;
     }
 
-    public boolean isLiveAt(IrInstruction instruction, SSAValue ssaValue) {
-        if (!livenessInformation.containsKey(instruction)) {
-            throw new IllegalArgumentException("Node " + instruction + " is not in liveness information");
-        }
+    // Constants left out of the analysis, the scans over single instructions skip them as well
+    public ImmediateOperands immediateOperands() {
+        return immediateOperands;
+    }
 
-        return livenessInformation.get(instruction).contains(ssaValue);
+    public boolean isLiveIn(SSAValue ssaValue, IrBlock block) {
+        return blockAnalysisResults.entry(block).get(ssaValue.id());
     }
 
-    public Set<SSAValue> getLiveNodesAt(IrInstruction instruction) {
-        if (!livenessInformation.containsKey(instruction)) {
-            throw new IllegalArgumentException("Node " + instruction + " is not in liveness information");
-        }
-        return Collections.unmodifiableSet(livenessInformation.get(instruction));
+    public boolean isLiveOut(SSAValue ssaValue, IrBlock block) {
+        return blockAnalysisResults.exit(block).get(ssaValue.id());
+    }
+
+    // Live right before the instruction, found by scanning the block backwards from its end
+    public boolean isLiveAt(IrBlock block, IrInstruction instruction, SSAValue ssaValue) {
+        return liveBefore(block, instruction).get(ssaValue.id());
+    }
+
+    public Set<SSAValue> getLiveNodesAt(IrBlock block, IrInstruction instruction) {
+        return Collections.unmodifiableSet(new DenseSet<>(function::ssaValue, liveBefore(block, instruction)));
+    }
+
+    public Set<SSAValue> getBlockLiveIn(IrBlock block) {
+        return Collections.unmodifiableSet(new DenseSet<>(function::ssaValue, blockAnalysisResults.entry(block)));
     }
 
     public Set<SSAValue> getBlockLiveOut(IrBlock block) {
-        if (!blockAnalysisResults.containsKey(block)) {
-            throw new IllegalArgumentException("Block " + block + " is not in liveness information");
+        return Collections.unmodifiableSet(new DenseSet<>(function::ssaValue, blockAnalysisResults.exit(block)));
+    }
+
+    // Fresh copy of the live-out bits, indexed by value id, for callers that scan the block themselves
+    BitSet copyBlockLiveOut(IrBlock block) {
+        return (BitSet) blockAnalysisResults.exit(block).clone();
+    }
+
+    private BitSet liveBefore(IrBlock block, IrInstruction instruction) {
+        BitSet live = copyBlockLiveOut(block);
+        List<IrInstruction> instructions = block.getInstructions();
+        for (int i = instructions.size() - 1; i >= 0; i--) {
+            IrInstruction current = instructions.get(i);
+            immediateOperands.definition(current).ifPresent(value -> live.clear(value.id()));
+            immediateOperands.forEachUse(current, value -> live.set(value.id()));
+            if (current == instruction) {
+                return live;
+            }
         }
 
-        return Collections.unmodifiableSet(blockAnalysisResults.get(block).out());
+        throw new IllegalArgumentException("Instruction " + instruction + " is not part of block " + block.name());
     }
 }
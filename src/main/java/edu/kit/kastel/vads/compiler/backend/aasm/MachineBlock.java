@@ -0,0 +1,6 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import java.util.List;
+
+// Instructions following a label up to the next one, in emission order. Control may fall through into the next block.
+public record MachineBlock(String label, List<MachineInstruction> instructions) { }
@@ -0,0 +1,26 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import java.util.List;
+
+// The selected instructions of one function in layout order, the first block is labeled with the function name
+// and starts with the prologue. Passes rewrite the instruction lists of the blocks in place.
+public record MachineFunction(List<MachineBlock> blocks) {
+
+    public String name() {
+        return blocks.getFirst().label();
+    }
+
+    public int instructionCount() {
+        return blocks.stream().mapToInt(block -> block.instructions().size()).sum();
+    }
+
+    // Prints or encodes the function, depending on the generator
+    public void generate(X86InstructionGenerator generator) {
+        for (MachineBlock block : blocks) {
+            generator.generateLabel(block.label());
+            for (MachineInstruction instruction : block.instructions()) {
+                instruction.generate(generator);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.backend.regalloc.InstructionParameter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Records the instructions chosen by the code generator as a MachineFunction instead of printing or encoding them.
+// Every label starts a new block. Directives belong to the file around the functions and are not supported,
+// comments and empty lines are dropped.
+public final class MachineFunctionBuilder implements X86InstructionGenerator {
+
+    private final List<MachineBlock> blocks = new ArrayList<>();
+
+    public MachineFunction build() {
+        return new MachineFunction(blocks);
+    }
+
+    private X86InstructionGenerator add(MachineInstruction instruction) {
+        if (blocks.isEmpty()) {
+            throw new IllegalStateException("Instruction " + instruction.opcode() + " before the first label");
+        }
+        blocks.getLast().instructions().add(instruction);
+        return this;
+    }
+
+    private X86InstructionGenerator add(X86Instruction opcode, BitSize bitSize, InstructionParameter... operands) {
+        return add(MachineInstruction.of(opcode, bitSize, operands));
+    }
+
+    private static UnsupportedOperationException directive(String directive) {
+        return new UnsupportedOperationException("Directive " + directive + " is not part of a machine function");
+    }
+
+    @Override
+    public X86InstructionGenerator generateGlobal(String label) {
+        throw directive(".global");
+    }
+
+    @Override
+    public X86InstructionGenerator generateFile(int fileNumber, String filename) {
+        throw directive(".file");
+    }
+
+    @Override
+    public X86InstructionGenerator generateLOCAnnotation(int fileNumber, int lineNumber, int columnNumber) {
+        throw directive(".loc");
+    }
+
+    @Override
+    public X86InstructionGenerator generateLabel(String label) {
+        blocks.add(new MachineBlock(label, new ArrayList<>()));
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateEmptyLine() {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateText() {
+        throw directive(".text");
+    }
+
+    @Override
+    public X86InstructionGenerator generateSyscall() {
+        return add(X86Instruction.SYSCALL, BitSize.BIT_64);
+    }
+
+    @Override
+    public X86InstructionGenerator generateCall(String label) {
+        return add(MachineInstruction.call(label));
+    }
+
+    @Override
+    public X86InstructionGenerator generatePushInstruction(InstructionParameter registerToPush, BitSize bitSize) {
+        return add(X86Instruction.PUSH, bitSize, registerToPush);
+    }
+
+    @Override
+    public X86InstructionGenerator generatePopInstruction(InstructionParameter registerToPop, BitSize bitSize) {
+        return add(X86Instruction.POP, bitSize, registerToPop);
+    }
+
+    @Override
+    public X86InstructionGenerator generateIntConstInstruction(InstructionParameter targetRegister, int constant, BitSize bitSize) {
+        return add(X86Instruction.MOV, bitSize, new IntegerConstantParameter(constant), targetRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateReturnInstruction() {
+        return add(X86Instruction.RETURN, BitSize.BIT_64);
+    }
+
+    @Override
+    public X86InstructionGenerator generateAdditionInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.ADD, bitSize, sourceRegister, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateSubtractionInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.SUB, bitSize, sourceRegister, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateMultiplicationInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.MULT, bitSize, sourceRegister, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateWideningMultiplicationInstruction(InstructionParameter factor, BitSize bitSize) {
+        return add(X86Instruction.WIDENING_MULT, bitSize, factor);
+    }
+
+    @Override
+    public X86InstructionGenerator generateLoadEffectiveAddressInstruction(X86Register base, X86Register index, int scale, X86Register destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.LOAD_EFFECTIVE_ADDRESS, bitSize, base, index, new IntegerConstantParameter(scale), destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateIntegerDivisionInstruction(InstructionParameter divisorRegister, BitSize bitSize) {
+        return add(X86Instruction.DIV, bitSize, divisorRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateSignExtendInstruction(BitSize bitSize) {
+        return add(X86Instruction.SIGN_EXTEND, bitSize);
+    }
+
+    @Override
+    public X86InstructionGenerator generateMoveInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.MOV, bitSize, sourceRegister, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateLeftShiftInstruction(InstructionParameter shiftCount, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.LEFT_SHIFT, bitSize, shiftCount, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateRightShiftInstruction(InstructionParameter shiftCount, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.RIGHT_SHIFT, bitSize, shiftCount, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateComparisonInstruction(InstructionParameter leftRegister, InstructionParameter rightRegister, BitSize bitSize) {
+        return add(X86Instruction.COMPARISON, bitSize, leftRegister, rightRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateSetConditionCodeInstruction(InstructionParameter destinationRegister, X86ConditionCode conditionCode) {
+        return add(MachineInstruction.setConditionCode(conditionCode, destinationRegister));
+    }
+
+    @Override
+    public X86InstructionGenerator generateBitwiseAndInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.BITWISE_AND, bitSize, sourceRegister, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateBitwiseOrInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.BITWISE_OR, bitSize, sourceRegister, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateBitwiseXorInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.BITWISE_XOR, bitSize, sourceRegister, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateBitwiseNotInstruction(InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.BITWISE_NOT, bitSize, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateNegationInstruction(InstructionParameter destinationRegister, BitSize bitSize) {
+        return add(X86Instruction.NEGATION, bitSize, destinationRegister);
+    }
+
+    @Override
+    public X86InstructionGenerator generateUnconditionalJumpInstruction(String label, BitSize bitSize) {
+        return add(MachineInstruction.jump(label, bitSize));
+    }
+
+    @Override
+    public X86InstructionGenerator generateConditionalJumpInstruction(X86ConditionCode conditionCode, String label, BitSize bitSize) {
+        return add(MachineInstruction.conditionalJump(conditionCode, label, bitSize));
+    }
+
+    @Override
+    public X86InstructionGenerator generateNonExecutableStack() {
+        throw directive(".section");
+    }
+
+    @Override
+    public X86InstructionGenerator generateComment(String comment, boolean generateIndentationSpace) {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator createEmpty() {
+        return new MachineFunctionBuilder();
+    }
+
+    @Override
+    public X86InstructionGenerator generateFrom(X86InstructionGenerator instructionGenerator) {
+        blocks.addAll(((MachineFunctionBuilder) instructionGenerator).blocks);
+        return this;
+    }
+}
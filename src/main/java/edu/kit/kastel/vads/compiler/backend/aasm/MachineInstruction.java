@@ -0,0 +1,96 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.backend.regalloc.InstructionParameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// One selected x86 instruction. The operands are in the order of the X86InstructionGenerator parameters, so the
+// destination comes last (lea: base, index, scale, destination). Jumps and calls name their target label, setcc and
+// conditional jumps carry their condition code.
+public record MachineInstruction(X86Instruction opcode,
+                                 List<InstructionParameter> operands,
+                                 BitSize bitSize,
+                                 Optional<X86ConditionCode> conditionCode,
+                                 Optional<String> label) {
+
+    public static MachineInstruction of(X86Instruction opcode, BitSize bitSize, InstructionParameter... operands) {
+        return new MachineInstruction(opcode, List.of(operands), bitSize, Optional.empty(), Optional.empty());
+    }
+
+    public static MachineInstruction setConditionCode(X86ConditionCode conditionCode, InstructionParameter destination) {
+        return new MachineInstruction(X86Instruction.SET_CONDITION_CODE, List.of(destination), BitSize.BIT_8,
+                Optional.of(conditionCode), Optional.empty());
+    }
+
+    public static MachineInstruction jump(String label, BitSize bitSize) {
+        return new MachineInstruction(X86Instruction.UNCONDITIONAL_JUMP, List.of(), bitSize,
+                Optional.empty(), Optional.of(label));
+    }
+
+    public static MachineInstruction conditionalJump(X86ConditionCode conditionCode, String label, BitSize bitSize) {
+        return new MachineInstruction(X86Instruction.CONDITIONAL_JUMP, List.of(), bitSize,
+                Optional.of(conditionCode), Optional.of(label));
+    }
+
+    public static MachineInstruction call(String label) {
+        return new MachineInstruction(X86Instruction.CALL, List.of(), BitSize.BIT_64,
+                Optional.empty(), Optional.of(label));
+    }
+
+    public InstructionParameter operand(int index) {
+        return operands.get(index);
+    }
+
+    // The operand an instruction writes, for instructions with an explicit destination
+    public InstructionParameter destination() {
+        return operands.getLast();
+    }
+
+    public MachineInstruction withOperand(int index, InstructionParameter operand) {
+        List<InstructionParameter> newOperands = new ArrayList<>(operands);
+        newOperands.set(index, operand);
+        return new MachineInstruction(opcode, List.copyOf(newOperands), bitSize, conditionCode, label);
+    }
+
+    public MachineInstruction withConditionCode(X86ConditionCode newConditionCode) {
+        return new MachineInstruction(opcode, operands, bitSize, Optional.of(newConditionCode), label);
+    }
+
+    // Passes the instruction on to a printer or encoder
+    public void generate(X86InstructionGenerator generator) {
+        switch (opcode) {
+            case MOV -> generator.generateMoveInstruction(operand(0), operand(1), bitSize);
+            case ADD -> generator.generateAdditionInstruction(operand(0), operand(1), bitSize);
+            case SUB -> generator.generateSubtractionInstruction(operand(0), operand(1), bitSize);
+            case MULT -> generator.generateMultiplicationInstruction(operand(0), operand(1), bitSize);
+            case WIDENING_MULT -> generator.generateWideningMultiplicationInstruction(operand(0), bitSize);
+            case LOAD_EFFECTIVE_ADDRESS -> generator.generateLoadEffectiveAddressInstruction(
+                    (X86Register) operand(0),
+                    (X86Register) operand(1),
+                    ((IntegerConstantParameter) operand(2)).getValue(),
+                    (X86Register) operand(3),
+                    bitSize);
+            case DIV -> generator.generateIntegerDivisionInstruction(operand(0), bitSize);
+            case SIGN_EXTEND -> generator.generateSignExtendInstruction(bitSize);
+            case RETURN -> generator.generateReturnInstruction();
+            case PUSH -> generator.generatePushInstruction(operand(0), bitSize);
+            case POP -> generator.generatePopInstruction(operand(0), bitSize);
+            case LEFT_SHIFT -> generator.generateLeftShiftInstruction(operand(0), operand(1), bitSize);
+            case RIGHT_SHIFT -> generator.generateRightShiftInstruction(operand(0), operand(1), bitSize);
+            case COMPARISON -> generator.generateComparisonInstruction(operand(0), operand(1), bitSize);
+            case SET_CONDITION_CODE -> generator.generateSetConditionCodeInstruction(operand(0), conditionCode.orElseThrow());
+            case BITWISE_AND -> generator.generateBitwiseAndInstruction(operand(0), operand(1), bitSize);
+            case BITWISE_OR -> generator.generateBitwiseOrInstruction(operand(0), operand(1), bitSize);
+            case BITWISE_XOR -> generator.generateBitwiseXorInstruction(operand(0), operand(1), bitSize);
+            case BITWISE_NOT -> generator.generateBitwiseNotInstruction(operand(0), bitSize);
+            case NEGATION -> generator.generateNegationInstruction(operand(0), bitSize);
+            case UNCONDITIONAL_JUMP -> generator.generateUnconditionalJumpInstruction(label.orElseThrow(), bitSize);
+            case CONDITIONAL_JUMP -> generator.generateConditionalJumpInstruction(
+                    conditionCode.orElseThrow(), label.orElseThrow(), bitSize);
+            case CALL -> generator.generateCall(label.orElseThrow());
+            case SYSCALL -> generator.generateSyscall();
+        }
+    }
+}
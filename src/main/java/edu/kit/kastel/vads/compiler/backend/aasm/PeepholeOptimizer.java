@@ -0,0 +1,221 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.backend.regalloc.InstructionParameter;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+
+import java.util.List;
+
+// Rewrites short instruction sequences of a MachineFunction that the code generator emits one IR instruction at a
+// time. Every rule starts at an instruction and looks at most window - 1 instructions ahead, always within one block.
+// Rules only remove or rewrite the instructions after their start (selfMove removes the start itself), relying on
+// facts that hold until an instruction in between writes one of the involved registers or stack slots. Calls,
+// returns and unconditional jumps end the window. There is no liveness at this level, so no rule removes a write
+// whose value might be read later. The table is tried in order at every position until no rule applies anymore.
+public final class PeepholeOptimizer {
+    public static final int DEFAULT_WINDOW = 4;
+
+    private static final List<Rule> RULES = List.of(
+            new Rule("selfMove", PeepholeOptimizer::removeSelfMove),
+            new Rule("redundantMove", PeepholeOptimizer::removeRedundantMove),
+            new Rule("storeLoadForwarding", PeepholeOptimizer::forwardStoredValue),
+            new Rule("setConditionBranch", PeepholeOptimizer::branchOnSetCondition));
+
+    private final int window;
+    private final long[] hits = new long[RULES.size()];
+
+    public PeepholeOptimizer(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Peephole window must be positive, was " + window);
+        }
+        this.window = window;
+    }
+
+    public void run(MachineFunction function) {
+        for (MachineBlock block : function.blocks()) {
+            List<MachineInstruction> instructions = block.instructions();
+            int index = 0;
+            while (index < instructions.size()) {
+                if (!applyRule(instructions, index)) {
+                    index++;
+                }
+            }
+        }
+    }
+
+    // Adds the hits of every rule to a "peephole/<rule>" counter, rules without hits are reported as well
+    public void countHits(CompilerStatistics statistics) {
+        for (int i = 0; i < RULES.size(); i++) {
+            statistics.count("peephole/" + RULES.get(i).name(), hits[i]);
+        }
+    }
+
+    private boolean applyRule(List<MachineInstruction> instructions, int index) {
+        int end = Math.min(instructions.size(), index + window);
+        for (int i = 0; i < RULES.size(); i++) {
+            if (RULES.get(i).rewrite().apply(instructions, index, end)) {
+                hits[i]++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // mov x, x
+    private static boolean removeSelfMove(List<MachineInstruction> instructions, int index, int end) {
+        MachineInstruction move = instructions.get(index);
+        if (move.opcode() != X86Instruction.MOV || !sameOperand(move.operand(0), move.operand(1))) {
+            return false;
+        }
+        instructions.remove(index);
+        return true;
+    }
+
+    // mov a, b ... mov a, b or mov b, a, e.g. the temp register written back to a stack slot and loaded again
+    private static boolean removeRedundantMove(List<MachineInstruction> instructions, int index, int end) {
+        MachineInstruction move = instructions.get(index);
+        if (move.opcode() != X86Instruction.MOV) {
+            return false;
+        }
+        InstructionParameter source = move.operand(0);
+        InstructionParameter destination = move.operand(1);
+
+        for (int i = index + 1; i < end; i++) {
+            MachineInstruction instruction = instructions.get(i);
+            if (instruction.opcode() == X86Instruction.MOV && instruction.bitSize() == move.bitSize()) {
+                InstructionParameter otherSource = instruction.operand(0);
+                InstructionParameter otherDestination = instruction.operand(1);
+                if ((sameOperand(otherSource, source) && sameOperand(otherDestination, destination))
+                        || (sameOperand(otherSource, destination) && sameOperand(otherDestination, source))) {
+                    instructions.remove(i);
+                    return true;
+                }
+            }
+            if (endsWindow(instruction) || writes(instruction, source) || writes(instruction, destination)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // mov r, slot ... op slot, x -> op r, x, a stored constant is only forwarded into moves
+    private static boolean forwardStoredValue(List<MachineInstruction> instructions, int index, int end) {
+        MachineInstruction store = instructions.get(index);
+        if (store.opcode() != X86Instruction.MOV
+                || store.operand(0) instanceof StackSlot
+                || !(store.operand(1) instanceof StackSlot slot)) {
+            return false;
+        }
+        InstructionParameter value = store.operand(0);
+
+        for (int i = index + 1; i < end; i++) {
+            MachineInstruction instruction = instructions.get(i);
+            if (instruction.bitSize() == store.bitSize()) {
+                for (int operand = 0; operand < instruction.operands().size(); operand++) {
+                    if (sameOperand(instruction.operand(operand), slot) && acceptsForwarded(instruction, operand, value)) {
+                        instructions.set(i, instruction.withOperand(operand, value));
+                        return true;
+                    }
+                }
+            }
+            if (endsWindow(instruction) || writes(instruction, value) || writes(instruction, slot)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsForwarded(MachineInstruction instruction, int operand, InstructionParameter value) {
+        if (value instanceof IntegerConstantParameter) {
+            return instruction.opcode() == X86Instruction.MOV && operand == 0;
+        }
+        return switch (instruction.opcode()) {
+            case MOV, ADD, SUB, MULT, BITWISE_AND, BITWISE_OR, BITWISE_XOR -> operand == 0;
+            case COMPARISON -> true;
+            default -> false;
+        };
+    }
+
+    // setcc d; cmp $1, d; je/jne L -> setcc d; jcc/jncc L, the flags of the setcc are still intact at the jump
+    private static boolean branchOnSetCondition(List<MachineInstruction> instructions, int index, int end) {
+        MachineInstruction setCondition = instructions.get(index);
+        if (setCondition.opcode() != X86Instruction.SET_CONDITION_CODE) {
+            return false;
+        }
+        InstructionParameter destination = setCondition.operand(0);
+
+        for (int i = index + 1; i + 1 < end; i++) {
+            MachineInstruction comparison = instructions.get(i);
+            MachineInstruction jump = instructions.get(i + 1);
+            if (comparison.opcode() == X86Instruction.COMPARISON
+                    && comparison.operand(0) instanceof IntegerConstantParameter constant && constant.getValue() == 1
+                    && sameOperand(comparison.operand(1), destination)
+                    && jump.opcode() == X86Instruction.CONDITIONAL_JUMP) {
+                X86ConditionCode conditionCode = setCondition.conditionCode().orElseThrow();
+                switch (jump.conditionCode().orElseThrow()) {
+                    case EQUAL -> { }
+                    case NOT_EQUAL -> conditionCode = conditionCode.negate();
+                    default -> {
+                        return false;
+                    }
+                }
+                instructions.remove(i);
+                instructions.set(i, jump.withConditionCode(conditionCode));
+                return true;
+            }
+            if (!preservesFlags(comparison) || writes(comparison, destination)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean preservesFlags(MachineInstruction instruction) {
+        return switch (instruction.opcode()) {
+            case MOV, LOAD_EFFECTIVE_ADDRESS, SET_CONDITION_CODE -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean endsWindow(MachineInstruction instruction) {
+        return switch (instruction.opcode()) {
+            case UNCONDITIONAL_JUMP, RETURN, CALL, SYSCALL -> true;
+            default -> false;
+        };
+    }
+
+    // Stack slots are addressed relative to BP, so they count as written with BP. Pushes and pops are treated as
+    // writing everything.
+    private static boolean writes(MachineInstruction instruction, InstructionParameter location) {
+        if (location instanceof IntegerConstantParameter) {
+            return false;
+        }
+        if (location instanceof StackSlot && writes(instruction, X86Register.REG_BP)) {
+            return true;
+        }
+        return switch (instruction.opcode()) {
+            case MOV, ADD, SUB, MULT, LOAD_EFFECTIVE_ADDRESS, LEFT_SHIFT, RIGHT_SHIFT, BITWISE_AND, BITWISE_OR,
+                 BITWISE_XOR, BITWISE_NOT, NEGATION, SET_CONDITION_CODE -> sameOperand(instruction.destination(), location);
+            case WIDENING_MULT, DIV -> location == X86Register.REG_AX || location == X86Register.REG_DX;
+            case SIGN_EXTEND -> location == X86Register.REG_DX;
+            case COMPARISON, CONDITIONAL_JUMP -> false;
+            case PUSH, POP, RETURN, UNCONDITIONAL_JUMP, CALL, SYSCALL -> true;
+        };
+    }
+
+    private static boolean sameOperand(InstructionParameter first, InstructionParameter second) {
+        return switch (first) {
+            case X86Register register -> register == second;
+            case StackSlot slot -> second instanceof StackSlot other && slot.getLocalIndex() == other.getLocalIndex();
+            case IntegerConstantParameter constant ->
+                    second instanceof IntegerConstantParameter other && constant.getValue() == other.getValue();
+        };
+    }
+
+    // Rewrites the instructions starting at index, end is the exclusive end of the window
+    @FunctionalInterface
+    private interface Rewrite {
+        boolean apply(List<MachineInstruction> instructions, int index, int end);
+    }
+
+    private record Rule(String name, Rewrite rewrite) { }
+}
@@ -0,0 +1,154 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.backend.regalloc.Register;
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
+import edu.kit.kastel.vads.compiler.ir.IrInstruction;
+import edu.kit.kastel.vads.compiler.ir.IrReturnInstruction;
+import edu.kit.kastel.vads.compiler.ir.SSAValue;
+import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Registers a value must avoid or should prefer because the code generator uses fixed registers for some instructions.
+// Division moves the dividend to AX and cdq and idiv overwrite AX and DX, shifts move their count to CX and the return
+// value is passed in AX. Values live across such an instruction must not sit in a register it overwrites, and neither
+// must operands that are read after the write. Shifts by an immediate count leave CX alone, and divisions by a power
+// of two (StrengthReduction) use no fixed register. Register sets are bitmasks over the ordinals of X86Register.
+public final class RegisterConstraints {
+    private static final int DIVISION_CLOBBERS = mask(X86Register.REG_AX) | mask(X86Register.REG_DX);
+    private static final int SHIFT_CLOBBERS = mask(X86Register.REG_CX);
+
+    private final int[] forbiddenRegisters;
+    private final int[] preferredRegisters;
+
+    private RegisterConstraints(int[] forbiddenRegisters, int[] preferredRegisters) {
+        this.forbiddenRegisters = forbiddenRegisters;
+        this.preferredRegisters = preferredRegisters;
+    }
+
+    // One backward scan per block, the live set before visiting an instruction is the set live after it
+    public static RegisterConstraints compute(IrFunction function, LivenessAnalysisResult livenessAnalysisResult) {
+        int[] forbidden = new int[function.ssaValueCount()];
+        int[] preferred = new int[function.ssaValueCount()];
+        ImmediateOperands immediateOperands = livenessAnalysisResult.immediateOperands();
+        for (IrBlock block : function.blocks()) {
+            BitSet live = livenessAnalysisResult.copyBlockLiveOut(block);
+            List<IrInstruction> instructions = block.getInstructions();
+            for (int i = instructions.size() - 1; i >= 0; i--) {
+                IrInstruction instruction = instructions.get(i);
+                switch (instruction) {
+                    case IrDivInstruction division when immediateOperands.isImmediate(division.rightSrc()) ->
+                            constrainDivisionByConstant(division, immediateOperands, live, forbidden, preferred);
+                    case IrModInstruction modulo when immediateOperands.isImmediate(modulo.rightSrc()) ->
+                            constrainDivisionByConstant(modulo, immediateOperands, live, forbidden, preferred);
+                    case IrDivInstruction division -> {
+                        constrainDivision(division, live, forbidden, preferred);
+                        preferred[division.target().id()] |= mask(X86Register.REG_AX);
+                    }
+                    case IrModInstruction modulo -> {
+                        constrainDivision(modulo, live, forbidden, preferred);
+                        preferred[modulo.target().id()] |= mask(X86Register.REG_DX);
+                    }
+                    case IrLeftShiftInstruction shift when !immediateOperands.isImmediate(shift.rightSrc()) ->
+                            constrainShift(shift, live, forbidden, preferred);
+                    case IrRightShiftInstruction shift when !immediateOperands.isImmediate(shift.rightSrc()) ->
+                            constrainShift(shift, live, forbidden, preferred);
+                    case IrReturnInstruction returnInstruction ->
+                            preferred[returnInstruction.src().id()] |= mask(X86Register.REG_AX);
+                    default -> { }
+                }
+
+                immediateOperands.definition(instruction).ifPresent(value -> live.clear(value.id()));
+                immediateOperands.forEachUse(instruction, value -> live.set(value.id()));
+            }
+        }
+        return new RegisterConstraints(forbidden, preferred);
+    }
+
+    // The divisor is read by idiv after AX and DX are written
+    private static void constrainDivision(IrBinaryOperationInstruction division, BitSet live, int[] forbidden, int[] preferred) {
+        forbidLiveAcross(division.target(), DIVISION_CLOBBERS, live, forbidden);
+        forbidden[division.rightSrc().id()] |= DIVISION_CLOBBERS;
+        preferred[division.leftSrc().id()] |= mask(X86Register.REG_AX);
+    }
+
+    // Powers of two only need the temp register. The multiplication with the magic number overwrites AX and DX after
+    // the dividend was copied to the temp register, the quotient ends up in DX.
+    private static void constrainDivisionByConstant(
+            IrBinaryOperationInstruction division,
+            ImmediateOperands immediateOperands,
+            BitSet live,
+            int[] forbidden,
+            int[] preferred) {
+        if (StrengthReduction.isPowerOfTwoDivisor(immediateOperands.value(division.rightSrc()))) {
+            return;
+        }
+        forbidLiveAcross(division.target(), DIVISION_CLOBBERS, live, forbidden);
+        if (division instanceof IrDivInstruction) {
+            preferred[division.target().id()] |= mask(X86Register.REG_DX);
+        }
+    }
+
+    // The shifted value and the target are used after the count was moved to CX
+    private static void constrainShift(IrBinaryOperationInstruction shift, BitSet live, int[] forbidden, int[] preferred) {
+        forbidLiveAcross(shift.target(), SHIFT_CLOBBERS, live, forbidden);
+        forbidden[shift.leftSrc().id()] |= SHIFT_CLOBBERS;
+        forbidden[shift.target().id()] |= SHIFT_CLOBBERS;
+        preferred[shift.rightSrc().id()] |= SHIFT_CLOBBERS;
+    }
+
+    private static void forbidLiveAcross(SSAValue target, int clobbers, BitSet live, int[] forbidden) {
+        for (int value = live.nextSetBit(0); value >= 0; value = live.nextSetBit(value + 1)) {
+            if (value != target.id()) {
+                forbidden[value] |= clobbers;
+            }
+        }
+    }
+
+    public int forbiddenRegisters(int value) {
+        return value < forbiddenRegisters.length ? forbiddenRegisters[value] : 0;
+    }
+
+    public int preferredRegisters(int value) {
+        return value < preferredRegisters.length ? preferredRegisters[value] : 0;
+    }
+
+    // First candidate in one of the preferred registers, otherwise the first candidate that is not forbidden.
+    // Stack slots are never forbidden.
+    public static Optional<Register> choose(Collection<Register> candidates, int forbidden, int preferred) {
+        Optional<Register> allowed = Optional.empty();
+        for (Register candidate : candidates) {
+            if (contains(forbidden, candidate)) {
+                continue;
+            }
+            if (contains(preferred, candidate)) {
+                return Optional.of(candidate);
+            }
+            if (allowed.isEmpty()) {
+                allowed = Optional.of(candidate);
+            }
+        }
+        return allowed;
+    }
+
+    // The first register in the given order that is not a fixed one, the code generator combines the temp register with
+    // CX in shifts
+    public static Register chooseTempRegister(Collection<Register> registers) {
+        return registers.stream()
+                .filter(register -> !X86Register.getImplicitlyUsedRegisters().contains(register))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    public static boolean contains(int registers, Register register) {
+        return register instanceof X86Register x86Register && (registers & mask(x86Register)) != 0;
+    }
+
+    private static int mask(X86Register register) {
+        return 1 << register.ordinal();
+    }
+}
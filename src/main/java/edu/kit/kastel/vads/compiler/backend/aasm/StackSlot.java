@@ -9,10 +9,20 @@ public final class StackSlot implements Register {
         this.localIndex = localIndex;
     }
 
+    // Arguments are pushed by the caller, they lie above the saved base pointer and the return address
+    public static StackSlot parameter(int index) {
+        return new StackSlot(-3 - index);
+    }
+
     public int getLocalIndex() {
         return localIndex;
     }
 
+    // Displacement relative to the base pointer
+    public int offset() {
+        return -(localIndex + 1) * 8;
+    }
+
     @Override
     public String toString() {
         return "StackSlot_" + localIndex;
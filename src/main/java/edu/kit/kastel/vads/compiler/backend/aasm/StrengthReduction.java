@@ -0,0 +1,79 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import java.util.Optional;
+
+// Cheaper replacements for multiplication, division and modulo by a constant right operand (Hacker's Delight, ch. 10).
+// Division and modulo by +-2^k add 2^k - 1 to negative dividends and shift or mask, every other divisor is replaced
+// by a multiplication with a magic number that keeps the high half of the product. Divisions by 0, -1 and the
+// minimum integer keep idiv, which traps on division by zero and on overflow. Multiplications by 2^k shift, by
+// 3, 5 or 9 times 2^k they use lea and a shift. Shifts by a constant use an immediate count anyway.
+public final class StrengthReduction {
+    private StrengthReduction() {
+    }
+
+    public static boolean isReducibleDivisor(int divisor) {
+        return divisor != 0 && divisor != -1 && divisor != Integer.MIN_VALUE;
+    }
+
+    // 1 and -1 count as 2^0
+    public static boolean isPowerOfTwoDivisor(int divisor) {
+        return divisor != Integer.MIN_VALUE && Integer.bitCount(Math.abs(divisor)) == 1;
+    }
+
+    // Quotient of dividend n is mulhs(multiplier, n) + n if the divisor is positive and the multiplier negative,
+    // - n for a negative divisor and a positive multiplier, shifted right arithmetically by shift, plus one if
+    // that is negative
+    public record MagicNumber(int multiplier, int shift) { }
+
+    // Hacker's Delight, figure 10-1, for divisors with an absolute value of at least 2 that are no power of two
+    public static MagicNumber magicNumber(int divisor) {
+        final int twoPower31 = Integer.MIN_VALUE;
+        int absoluteDivisor = Math.abs(divisor);
+        int t = twoPower31 + (divisor >>> 31);
+        int absoluteNc = t - 1 - Integer.remainderUnsigned(t, absoluteDivisor);
+        int p = 31;
+        int q1 = Integer.divideUnsigned(twoPower31, absoluteNc);
+        int r1 = twoPower31 - q1 * absoluteNc;
+        int q2 = Integer.divideUnsigned(twoPower31, absoluteDivisor);
+        int r2 = twoPower31 - q2 * absoluteDivisor;
+        int delta;
+        do {
+            p++;
+            q1 = 2 * q1;
+            r1 = 2 * r1;
+            if (Integer.compareUnsigned(r1, absoluteNc) >= 0) {
+                q1++;
+                r1 -= absoluteNc;
+            }
+            q2 = 2 * q2;
+            r2 = 2 * r2;
+            if (Integer.compareUnsigned(r2, absoluteDivisor) >= 0) {
+                q2++;
+                r2 -= absoluteDivisor;
+            }
+            delta = absoluteDivisor - r2;
+        } while (Integer.compareUnsigned(q1, delta) < 0 || (q1 == delta && r1 == 0));
+
+        int multiplier = q2 + 1;
+        return new MagicNumber(divisor < 0 ? -multiplier : multiplier, p - 32);
+    }
+
+    // factor = (1 + leaScale) << shift, a lea scale of 0 means no lea
+    public record Multiplication(int leaScale, int shift) { }
+
+    // Empty if imul is at least as cheap, which holds for all negative factors
+    public static Optional<Multiplication> multiplication(int factor) {
+        if (factor <= 0) {
+            return Optional.empty();
+        }
+
+        int shift = Integer.numberOfTrailingZeros(factor);
+        return switch (factor >>> shift) {
+            case 1 -> Optional.of(new Multiplication(0, shift));
+            case 3 -> Optional.of(new Multiplication(2, shift));
+            case 5 -> Optional.of(new Multiplication(4, shift));
+            case 9 -> Optional.of(new Multiplication(8, shift));
+            default -> Optional.empty();
+        };
+    }
+}
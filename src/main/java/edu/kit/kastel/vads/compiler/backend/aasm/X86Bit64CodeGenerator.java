@@ -1,12 +1,18 @@
 package edu.kit.kastel.vads.compiler.backend.aasm;
 
+import edu.kit.kastel.vads.compiler.backend.regalloc.InstructionParameter;
 import edu.kit.kastel.vads.compiler.backend.regalloc.Register;
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
 import edu.kit.kastel.vads.compiler.ir.IrBranchInstruction;
 import edu.kit.kastel.vads.compiler.ir.IrJumpInstruction;
 import edu.kit.kastel.vads.compiler.ir.IrReturnInstruction;
 import edu.kit.kastel.vads.compiler.ir.IrType;
+import edu.kit.kastel.vads.compiler.ir.SSAValue;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
 
+import java.util.List;
+import java.util.Optional;
+
 public class X86Bit64CodeGenerator implements CodeGenerator {
     private final X86InstructionGenerator instructionGenerator;
 
@@ -37,6 +43,9 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
 
     @Override
     public void generateConstantInstruction(CodeGenerationContext generationContext, IrIntConstantInstruction instruction) {
+        if (generationContext.immediateOperands().isImmediate(instruction.target())) {
+            return;
+        }
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         instructionGenerator.generateIntConstInstruction(
@@ -47,6 +56,9 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
 
     @Override
     public void generateConstantInstruction(CodeGenerationContext generationContext, IrBoolConstantInstruction instruction) {
+        if (generationContext.immediateOperands().isImmediate(instruction.target())) {
+            return;
+        }
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         instructionGenerator.generateIntConstInstruction(
@@ -61,12 +73,12 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
 
         generateMove(
                 allocationResult,
-                allocationResult.nodeToRegisterMapping().get(instruction.source()),
+                operand(generationContext, instruction.source()),
                 allocationResult.nodeToRegisterMapping().get(instruction.target()),
                 getBitSize(instruction.target().type()));
     }
 
-    private void generateMove(RegisterAllocationResult allocationResult, Register sourceRegister, Register targetRegister, BitSize bitSize) {
+    private void generateMove(RegisterAllocationResult allocationResult, InstructionParameter sourceRegister, Register targetRegister, BitSize bitSize) {
         if (sourceRegister == targetRegister) {
             return;
         }
@@ -83,8 +95,9 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     public void generateAdd(CodeGenerationContext generationContext, IrAddInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
-        Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        BinaryOperands operands = commutativeOperands(generationContext, instruction);
+        InstructionParameter leftOperandRegister = operands.left();
+        InstructionParameter rightOperandRegister = operands.right();
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
@@ -110,7 +123,7 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        InstructionParameter rightOperandRegister = operand(generationContext, instruction.rightSrc());
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
@@ -136,11 +149,20 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     public void generateMult(CodeGenerationContext generationContext, IrMulInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
-        Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        BinaryOperands operands = commutativeOperands(generationContext, instruction);
+        InstructionParameter leftOperandRegister = operands.left();
+        InstructionParameter rightOperandRegister = operands.right();
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
+        if (rightOperandRegister instanceof IntegerConstantParameter factor) {
+            Optional<StrengthReduction.Multiplication> multiplication = StrengthReduction.multiplication(factor.getValue());
+            if (multiplication.isPresent()) {
+                generateMultiplicationByConstant(allocationResult, leftOperandRegister, multiplication.get(), targetRegister, bitSize);
+                return;
+            }
+        }
+
         if (targetRegister instanceof StackSlot) {
             instructionGenerator.generateMoveInstruction(rightOperandRegister, allocationResult.tempRegister(), bitSize)
                     .generateMultiplicationInstruction(leftOperandRegister, allocationResult.tempRegister(), bitSize)
@@ -158,28 +180,154 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         }
     }
 
+    // factor = (1 + leaScale) << shift, operands of lea have to be registers
+    private void generateMultiplicationByConstant(
+            RegisterAllocationResult allocationResult,
+            InstructionParameter factorRegister,
+            StrengthReduction.Multiplication multiplication,
+            Register targetRegister,
+            BitSize bitSize) {
+        X86Register tempRegister = (X86Register) allocationResult.tempRegister();
+        if (multiplication.leaScale() == 0) {
+            generateMove(allocationResult, factorRegister, targetRegister, bitSize);
+            if (multiplication.shift() > 0) {
+                instructionGenerator.generateLeftShiftInstruction(new IntegerConstantParameter(multiplication.shift()), targetRegister, bitSize);
+            }
+            return;
+        }
+
+        X86Register baseRegister;
+        if (factorRegister instanceof X86Register register) {
+            baseRegister = register;
+        } else {
+            instructionGenerator.generateMoveInstruction(factorRegister, tempRegister, bitSize);
+            baseRegister = tempRegister;
+        }
+        X86Register resultRegister = targetRegister instanceof X86Register register ? register : tempRegister;
+
+        instructionGenerator.generateLoadEffectiveAddressInstruction(baseRegister, baseRegister, multiplication.leaScale(), resultRegister, bitSize);
+        if (multiplication.shift() > 0) {
+            instructionGenerator.generateLeftShiftInstruction(new IntegerConstantParameter(multiplication.shift()), resultRegister, bitSize);
+        }
+        generateMove(allocationResult, resultRegister, targetRegister, bitSize);
+    }
+
     @Override
     public void generateDiv(CodeGenerationContext generationContext, IrDivInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
+        Register dividendRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
+        InstructionParameter divisorRegister = operand(generationContext, instruction.rightSrc());
+        Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
+
         BitSize bitSize = getBitSize(instruction.target().type());
+        if (divisorRegister instanceof IntegerConstantParameter divisor) {
+            if (StrengthReduction.isPowerOfTwoDivisor(divisor.getValue())) {
+                generateDivisionByPowerOfTwo(allocationResult, dividendRegister, divisor.getValue(), targetRegister, bitSize);
+            } else {
+                generateDivisionByMagicNumber(allocationResult, dividendRegister, divisor.getValue(), bitSize);
+                generateMove(allocationResult, X86Register.REG_DX, targetRegister, bitSize);
+            }
+            return;
+        }
+
+        generateMove(allocationResult, dividendRegister, X86Register.REG_AX, bitSize);
         instructionGenerator
-                .generateMoveInstruction(allocationResult.nodeToRegisterMapping().get(instruction.leftSrc()), X86Register.REG_AX, bitSize)
                 .generateSignExtendInstruction(BitSize.BIT_32)
-                .generateIntegerDivisionInstruction(allocationResult.nodeToRegisterMapping().get(instruction.rightSrc()), bitSize)
-                .generateMoveInstruction(X86Register.REG_AX, allocationResult.nodeToRegisterMapping().get(instruction.target()), bitSize);
+                .generateIntegerDivisionInstruction(divisorRegister, bitSize);
+        generateMove(allocationResult, X86Register.REG_AX, targetRegister, bitSize);
     }
 
     @Override
     public void generateMod(CodeGenerationContext generationContext, IrModInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
+        Register dividendRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
+        InstructionParameter divisorRegister = operand(generationContext, instruction.rightSrc());
+        Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
+
         BitSize bitSize = getBitSize(instruction.target().type());
+        if (divisorRegister instanceof IntegerConstantParameter divisor) {
+            Register tempRegister = allocationResult.tempRegister();
+            if (StrengthReduction.isPowerOfTwoDivisor(divisor.getValue())) {
+                // n % d = n - ((n + bias) & -|d|), the sign of the divisor does not matter
+                int absoluteDivisor = Math.abs(divisor.getValue());
+                generateBiasedDividend(dividendRegister, absoluteDivisor, tempRegister, bitSize);
+                instructionGenerator.generateBitwiseAndInstruction(new IntegerConstantParameter(-absoluteDivisor), tempRegister, bitSize)
+                        .generateNegationInstruction(tempRegister, bitSize)
+                        .generateAdditionInstruction(dividendRegister, tempRegister, bitSize);
+            } else {
+                // n % d = n - (n / d) * d, the dividend is still in the temp register
+                generateDivisionByMagicNumber(allocationResult, dividendRegister, divisor.getValue(), bitSize);
+                instructionGenerator.generateMultiplicationInstruction(divisor, X86Register.REG_DX, bitSize)
+                        .generateSubtractionInstruction(X86Register.REG_DX, tempRegister, bitSize);
+            }
+            generateMove(allocationResult, tempRegister, targetRegister, bitSize);
+            return;
+        }
+
+        generateMove(allocationResult, dividendRegister, X86Register.REG_AX, bitSize);
         instructionGenerator
-                .generateMoveInstruction(allocationResult.nodeToRegisterMapping().get(instruction.leftSrc()), X86Register.REG_AX, bitSize)
                 .generateSignExtendInstruction(BitSize.BIT_32)
-                .generateIntegerDivisionInstruction(allocationResult.nodeToRegisterMapping().get(instruction.rightSrc()), bitSize)
-                .generateMoveInstruction(X86Register.REG_DX, allocationResult.nodeToRegisterMapping().get(instruction.target()), bitSize);
+                .generateIntegerDivisionInstruction(divisorRegister, bitSize);
+        generateMove(allocationResult, X86Register.REG_DX, targetRegister, bitSize);
+    }
+
+    // Shifting right rounds towards negative infinity, the bias |d| - 1 added to negative dividends makes it round
+    // towards zero like idiv
+    private void generateDivisionByPowerOfTwo(
+            RegisterAllocationResult allocationResult,
+            Register dividendRegister,
+            int divisor,
+            Register targetRegister,
+            BitSize bitSize) {
+        int absoluteDivisor = Math.abs(divisor);
+        if (absoluteDivisor == 1) {
+            generateMove(allocationResult, dividendRegister, targetRegister, bitSize);
+        } else {
+            Register tempRegister = allocationResult.tempRegister();
+            generateBiasedDividend(dividendRegister, absoluteDivisor, tempRegister, bitSize);
+            instructionGenerator.generateRightShiftInstruction(
+                    new IntegerConstantParameter(Integer.numberOfTrailingZeros(absoluteDivisor)), tempRegister, bitSize);
+            generateMove(allocationResult, tempRegister, targetRegister, bitSize);
+        }
+
+        if (divisor < 0) {
+            instructionGenerator.generateNegationInstruction(targetRegister, bitSize);
+        }
+    }
+
+    // temp = n + (n < 0 ? |d| - 1 : 0)
+    private void generateBiasedDividend(Register dividendRegister, int absoluteDivisor, Register tempRegister, BitSize bitSize) {
+        instructionGenerator.generateMoveInstruction(dividendRegister, tempRegister, bitSize)
+                .generateRightShiftInstruction(new IntegerConstantParameter(31), tempRegister, bitSize)
+                .generateBitwiseAndInstruction(new IntegerConstantParameter(absoluteDivisor - 1), tempRegister, bitSize)
+                .generateAdditionInstruction(dividendRegister, tempRegister, bitSize);
+    }
+
+    // Leaves the quotient in DX and the dividend in the temp register, overwrites AX
+    private void generateDivisionByMagicNumber(
+            RegisterAllocationResult allocationResult,
+            Register dividendRegister,
+            int divisor,
+            BitSize bitSize) {
+        StrengthReduction.MagicNumber magicNumber = StrengthReduction.magicNumber(divisor);
+        Register tempRegister = allocationResult.tempRegister();
+        instructionGenerator.generateMoveInstruction(dividendRegister, tempRegister, bitSize)
+                .generateMoveInstruction(new IntegerConstantParameter(magicNumber.multiplier()), X86Register.REG_AX, bitSize)
+                .generateWideningMultiplicationInstruction(tempRegister, bitSize);
+        if (divisor > 0 && magicNumber.multiplier() < 0) {
+            instructionGenerator.generateAdditionInstruction(tempRegister, X86Register.REG_DX, bitSize);
+        } else if (divisor < 0 && magicNumber.multiplier() > 0) {
+            instructionGenerator.generateSubtractionInstruction(tempRegister, X86Register.REG_DX, bitSize);
+        }
+        if (magicNumber.shift() > 0) {
+            instructionGenerator.generateRightShiftInstruction(new IntegerConstantParameter(magicNumber.shift()), X86Register.REG_DX, bitSize);
+        }
+        // Adds one to negative quotients, subtracting the sign mask avoids a logical shift
+        instructionGenerator.generateMoveInstruction(X86Register.REG_DX, X86Register.REG_AX, bitSize)
+                .generateRightShiftInstruction(new IntegerConstantParameter(31), X86Register.REG_AX, bitSize)
+                .generateSubtractionInstruction(X86Register.REG_AX, X86Register.REG_DX, bitSize);
     }
 
     @Override
@@ -187,10 +335,18 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         Register valueRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register shiftCountRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        InstructionParameter shiftCountRegister = operand(generationContext, instruction.rightSrc());
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
+        if (shiftCountRegister instanceof IntegerConstantParameter shiftCount) {
+            // The hardware masks a count in CL to five bits, so does the immediate
+            generateMove(allocationResult, valueRegister, targetRegister, bitSize);
+            instructionGenerator.generateLeftShiftInstruction(new IntegerConstantParameter(shiftCount.getValue() & 0x1F), targetRegister, bitSize);
+            return;
+        }
+
+        checkShiftOperandsOutsideCountRegister(valueRegister, targetRegister);
         if (shiftCountRegister != X86Register.REG_CX) {
             generateMove(allocationResult, shiftCountRegister, X86Register.REG_CX, bitSize);
         }
@@ -205,15 +361,30 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         }
     }
 
+    // RegisterConstraints keeps the shifted value and the target of a shift by a variable count out of CX
+    private static void checkShiftOperandsOutsideCountRegister(Register valueRegister, Register targetRegister) {
+        if (valueRegister == X86Register.REG_CX || targetRegister == X86Register.REG_CX) {
+            throw new IllegalStateException("Shift operand allocated to the count register %cl");
+        }
+    }
+
     @Override
     public void generateRightShift(CodeGenerationContext generationContext, IrRightShiftInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         Register valueRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register shiftCountRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        InstructionParameter shiftCountRegister = operand(generationContext, instruction.rightSrc());
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
+        if (shiftCountRegister instanceof IntegerConstantParameter shiftCount) {
+            // The hardware masks a count in CL to five bits, so does the immediate
+            generateMove(allocationResult, valueRegister, targetRegister, bitSize);
+            instructionGenerator.generateRightShiftInstruction(new IntegerConstantParameter(shiftCount.getValue() & 0x1F), targetRegister, bitSize);
+            return;
+        }
+
+        checkShiftOperandsOutsideCountRegister(valueRegister, targetRegister);
         if (shiftCountRegister != X86Register.REG_CX) {
             generateMove(allocationResult, shiftCountRegister, X86Register.REG_CX, bitSize);
         }
@@ -232,8 +403,9 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     public void generateBitwiseAnd(CodeGenerationContext generationContext, IrBitwiseAndInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
-        Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        BinaryOperands operands = commutativeOperands(generationContext, instruction);
+        InstructionParameter leftOperandRegister = operands.left();
+        InstructionParameter rightOperandRegister = operands.right();
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
@@ -259,8 +431,9 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     public void generateBitwiseOr(CodeGenerationContext generationContext, IrBitwiseOrInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
-        Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        BinaryOperands operands = commutativeOperands(generationContext, instruction);
+        InstructionParameter leftOperandRegister = operands.left();
+        InstructionParameter rightOperandRegister = operands.right();
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
@@ -290,10 +463,7 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         Register targetValueRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
-        if (sourceValueRegister != targetValueRegister) {
-            instructionGenerator.generateMoveInstruction(sourceValueRegister, targetValueRegister, bitSize);
-        }
-
+        generateMove(allocationResult, sourceValueRegister, targetValueRegister, bitSize);
         instructionGenerator.generateBitwiseNotInstruction(targetValueRegister, bitSize);
     }
 
@@ -301,8 +471,9 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     public void generateBitwiseXor(CodeGenerationContext generationContext, IrBitwiseXorInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
-        Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        BinaryOperands operands = commutativeOperands(generationContext, instruction);
+        InstructionParameter leftOperandRegister = operands.left();
+        InstructionParameter rightOperandRegister = operands.right();
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
@@ -328,8 +499,9 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     public void generateEquals(CodeGenerationContext generationContext, IrEqualsInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
-        Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        BinaryOperands operands = commutativeOperands(generationContext, instruction);
+        InstructionParameter leftOperandRegister = operands.left();
+        InstructionParameter rightOperandRegister = operands.right();
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.leftSrc().type());
@@ -337,11 +509,11 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
             && rightOperandRegister instanceof StackSlot) {
             instructionGenerator
                     .generateMoveInstruction(leftOperandRegister, allocationResult.tempRegister(), bitSize)
-                    .generateComparisonInstruction(allocationResult.tempRegister(), rightOperandRegister, bitSize)
+                    .generateComparisonInstruction(rightOperandRegister, allocationResult.tempRegister(), bitSize)
                     .generateSetConditionCodeInstruction(targetRegister, X86ConditionCode.EQUAL);
         } else {
             instructionGenerator
-                    .generateComparisonInstruction(leftOperandRegister, rightOperandRegister, bitSize)
+                    .generateComparisonInstruction(rightOperandRegister, leftOperandRegister, bitSize)
                     .generateSetConditionCodeInstruction(targetRegister, X86ConditionCode.EQUAL);
         }
 
@@ -351,8 +523,9 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     public void generateUnequals(CodeGenerationContext generationContext, IrUnequalsInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
-        Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        BinaryOperands operands = commutativeOperands(generationContext, instruction);
+        InstructionParameter leftOperandRegister = operands.left();
+        InstructionParameter rightOperandRegister = operands.right();
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.leftSrc().type());
@@ -360,11 +533,11 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
                 && rightOperandRegister instanceof StackSlot) {
             instructionGenerator
                     .generateMoveInstruction(leftOperandRegister, allocationResult.tempRegister(), bitSize)
-                    .generateComparisonInstruction(allocationResult.tempRegister(), rightOperandRegister, bitSize)
+                    .generateComparisonInstruction(rightOperandRegister, allocationResult.tempRegister(), bitSize)
                     .generateSetConditionCodeInstruction(targetRegister, X86ConditionCode.NOT_EQUAL);
         } else {
             instructionGenerator
-                    .generateComparisonInstruction(leftOperandRegister, rightOperandRegister, bitSize)
+                    .generateComparisonInstruction(rightOperandRegister, leftOperandRegister, bitSize)
                     .generateSetConditionCodeInstruction(targetRegister, X86ConditionCode.NOT_EQUAL);
         }
     }
@@ -374,7 +547,7 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        InstructionParameter rightOperandRegister = operand(generationContext, instruction.rightSrc());
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.leftSrc().type());
@@ -397,7 +570,7 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        InstructionParameter rightOperandRegister = operand(generationContext, instruction.rightSrc());
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.leftSrc().type());
@@ -419,7 +592,7 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        InstructionParameter rightOperandRegister = operand(generationContext, instruction.rightSrc());
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.leftSrc().type());
@@ -442,7 +615,7 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
 
         Register leftOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.leftSrc());
-        Register rightOperandRegister = allocationResult.nodeToRegisterMapping().get(instruction.rightSrc());
+        InstructionParameter rightOperandRegister = operand(generationContext, instruction.rightSrc());
         Register targetRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.leftSrc().type());
@@ -468,10 +641,7 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
         Register targetValueRegister = allocationResult.nodeToRegisterMapping().get(instruction.target());
 
         BitSize bitSize = getBitSize(instruction.target().type());
-        if (sourceValueRegister != targetValueRegister) {
-            instructionGenerator.generateMoveInstruction(sourceValueRegister, targetValueRegister, bitSize);
-        }
-
+        generateMove(allocationResult, sourceValueRegister, targetValueRegister, bitSize);
         instructionGenerator.generateNegationInstruction(targetValueRegister, bitSize);
     }
 
@@ -488,6 +658,49 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
                 .generateSetConditionCodeInstruction(targetValueRegister, X86ConditionCode.EQUAL);
     }
 
+    // The called function may overwrite every register, so the registers of values live across the call are pushed
+    // before and popped after it. Stack slots lie above the stack pointer and are not touched by the callee. The
+    // arguments are pushed last to first on top of the saved registers and removed by the caller after the call.
+    @Override
+    public void generateCall(CodeGenerationContext generationContext, IrCallInstruction instruction) {
+        RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
+
+        List<Register> savedRegisters = generationContext.valuesLiveAcrossCalls().get(instruction.target()).stream()
+                .map(value -> allocationResult.nodeToRegisterMapping().get(value))
+                .filter(register -> register instanceof X86Register)
+                .distinct()
+                .toList();
+        for (Register register : savedRegisters) {
+            instructionGenerator.generatePushInstruction(register, BitSize.BIT_64);
+        }
+
+        for (SSAValue argument : instruction.arguments().reversed()) {
+            instructionGenerator.generatePushInstruction(operand(generationContext, argument), BitSize.BIT_64);
+        }
+        instructionGenerator.generateCall(instruction.functionLabel());
+        if (!instruction.arguments().isEmpty()) {
+            instructionGenerator.generateAdditionInstruction(
+                    new IntegerConstantParameter(instruction.arguments().size() * 8), X86Register.REG_SP, BitSize.BIT_64);
+        }
+        generateMove(allocationResult, X86Register.REG_AX,
+                allocationResult.nodeToRegisterMapping().get(instruction.target()), getBitSize(instruction.target().type()));
+
+        for (Register register : savedRegisters.reversed()) {
+            instructionGenerator.generatePopInstruction(register, BitSize.BIT_64);
+        }
+    }
+
+    @Override
+    public void generateParameter(CodeGenerationContext generationContext, IrParameterInstruction instruction) {
+        RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
+
+        generateMove(
+                allocationResult,
+                StackSlot.parameter(instruction.index()),
+                allocationResult.nodeToRegisterMapping().get(instruction.target()),
+                getBitSize(instruction.target().type()));
+    }
+
     @Override
     public void generateReturn(CodeGenerationContext generationContext, IrReturnInstruction instruction) {
         RegisterAllocationResult allocationResult = generationContext.registerAllocationResult();
@@ -508,29 +721,55 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     }
 
     @Override
-    public void generateBranch(CodeGenerationContext generationContext, IrBranchInstruction instruction) {
+    public void generateBranch(CodeGenerationContext generationContext, IrBranchInstruction instruction, Optional<IrBlock> nextBlock) {
         IrValueProducingInstruction conditionProducingInstruction
                 = generationContext.ssaValueByProducingInstructions().get(instruction.conditionValue());
 
+        X86ConditionCode conditionCode;
         if (isComparisonInstruction(conditionProducingInstruction)) {
             // Instruction is a comparison -> use flags directly
-            instructionGenerator
-                    .generateConditionalJumpInstruction(
-                            mapIrComparisonToX86ConditionCode(conditionProducingInstruction),
-                            instruction.trueTarget().name(),
-                            BitSize.BIT_64)
-                    .generateUnconditionalJumpInstruction(
-                            instruction.falseTarget().name(),
-                            BitSize.BIT_64);
+            conditionCode = mapIrComparisonToX86ConditionCode(conditionProducingInstruction);
         } else {
             // Instruction is bool expression or successor of comparison
             Register conditionValueRegister = generationContext.registerAllocationResult()
                     .nodeToRegisterMapping().get(instruction.conditionValue());
             instructionGenerator
-                    .generateComparisonInstruction(new IntegerConstantParameter(1), conditionValueRegister, getBitSize(instruction.conditionValue().type()))
-                    .generateConditionalJumpInstruction(X86ConditionCode.EQUAL, instruction.trueTarget().name(), BitSize.BIT_64)
-                    .generateUnconditionalJumpInstruction(instruction.falseTarget().name(), BitSize.BIT_64);
+                    .generateComparisonInstruction(new IntegerConstantParameter(1), conditionValueRegister, getBitSize(instruction.conditionValue().type()));
+            conditionCode = X86ConditionCode.EQUAL;
+        }
+
+        // A target emitted next is reached by falling through, the condition is inverted when that is the true target
+        if (isNext(nextBlock, instruction.trueTarget())) {
+            instructionGenerator.generateConditionalJumpInstruction(
+                    conditionCode.negate(), instruction.falseTarget().name(), BitSize.BIT_64);
+            return;
+        }
+
+        instructionGenerator.generateConditionalJumpInstruction(conditionCode, instruction.trueTarget().name(), BitSize.BIT_64);
+        if (!isNext(nextBlock, instruction.falseTarget())) {
+            instructionGenerator.generateUnconditionalJumpInstruction(instruction.falseTarget().name(), BitSize.BIT_64);
+        }
+    }
+
+    // Constants folded into the instruction are immediates, every other value has a register or stack slot
+    private static InstructionParameter operand(CodeGenerationContext generationContext, SSAValue value) {
+        if (generationContext.immediateOperands().isImmediate(value)) {
+            return generationContext.immediateOperands().parameter(value);
         }
+        return generationContext.registerAllocationResult().nodeToRegisterMapping().get(value);
+    }
+
+    // Operands of a commutative instruction, a constant is always the right one
+    private static BinaryOperands commutativeOperands(CodeGenerationContext generationContext, IrBinaryOperationInstruction instruction) {
+        InstructionParameter left = operand(generationContext, instruction.leftSrc());
+        InstructionParameter right = operand(generationContext, instruction.rightSrc());
+        return left instanceof IntegerConstantParameter ? new BinaryOperands(right, left) : new BinaryOperands(left, right);
+    }
+
+    private record BinaryOperands(InstructionParameter left, InstructionParameter right) { }
+
+    private static boolean isNext(Optional<IrBlock> nextBlock, IrBlock block) {
+        return nextBlock.isPresent() && nextBlock.get() == block;
     }
 
     private static boolean isComparisonInstruction(IrValueProducingInstruction instruction) {
@@ -561,12 +800,19 @@ public class X86Bit64CodeGenerator implements CodeGenerator {
     }
 
     @Override
-    public void generateJump(CodeGenerationContext generationContext, IrJumpInstruction instruction) {
-        instructionGenerator.generateUnconditionalJumpInstruction(instruction.jumpTarget().name(), BitSize.BIT_64);
+    public void generateJump(CodeGenerationContext generationContext, IrJumpInstruction instruction, Optional<IrBlock> nextBlock) {
+        if (!isNext(nextBlock, instruction.jumpTarget())) {
+            instructionGenerator.generateUnconditionalJumpInstruction(instruction.jumpTarget().name(), BitSize.BIT_64);
+        }
     }
 
     @Override
     public X86InstructionGenerator getX86InstructionGenerator() {
         return instructionGenerator;
     }
+
+    @Override
+    public CodeGenerator withInstructionGenerator(X86InstructionGenerator instructionGenerator) {
+        return new X86Bit64CodeGenerator(instructionGenerator);
+    }
 }
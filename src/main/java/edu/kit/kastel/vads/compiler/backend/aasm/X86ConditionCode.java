@@ -6,5 +6,17 @@ public enum X86ConditionCode {
     LESS_THAN,
     GREATER_THAN,
     LESS_THAN_OR_EQUAL,
-    GREATER_THAN_OR_EQUAL
+    GREATER_THAN_OR_EQUAL;
+
+    // Holds exactly when this condition does not
+    public X86ConditionCode negate() {
+        return switch (this) {
+            case EQUAL -> NOT_EQUAL;
+            case NOT_EQUAL -> EQUAL;
+            case LESS_THAN -> GREATER_THAN_OR_EQUAL;
+            case GREATER_THAN -> LESS_THAN_OR_EQUAL;
+            case LESS_THAN_OR_EQUAL -> GREATER_THAN;
+            case GREATER_THAN_OR_EQUAL -> LESS_THAN;
+        };
+    }
 }
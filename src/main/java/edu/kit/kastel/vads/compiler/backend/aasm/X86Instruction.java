@@ -5,6 +5,8 @@ public enum X86Instruction {
     ADD,
     SUB,
     MULT,
+    WIDENING_MULT,
+    LOAD_EFFECTIVE_ADDRESS,
     DIV,
     SIGN_EXTEND,
     RETURN,
@@ -20,5 +22,7 @@ public enum X86Instruction {
     BITWISE_NOT,
     NEGATION,
     UNCONDITIONAL_JUMP,
-    CONDITIONAL_JUMP
+    CONDITIONAL_JUMP,
+    CALL,
+    SYSCALL
 }
@@ -83,20 +83,21 @@ public final class X86InstructionLiteralFormatter {
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.ADD, "addb");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.SUB, "subb");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.MULT, "imulb");
+        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.WIDENING_MULT, "imulb");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.DIV, "idivb");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.SIGN_EXTEND, "cbw");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.RETURN, "ret");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.PUSH, "push");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.POP, "pop");
-        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.LEFT_SHIFT, "sal");
-        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.RIGHT_SHIFT, "sar");
+        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.LEFT_SHIFT, "salb");
+        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.RIGHT_SHIFT, "sarb");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.COMPARISON, "cmpb");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.SET_CONDITION_CODE, "set");
-        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_AND, "and");
-        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_OR, "or");
-        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_XOR, "xor");
-        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_NOT, "not");
-        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.NEGATION, "neg");
+        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_AND, "andb");
+        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_OR, "orb");
+        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_XOR, "xorb");
+        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_NOT, "notb");
+        BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.NEGATION, "negb");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.UNCONDITIONAL_JUMP, "jmp");
         BIT_8_INSTRUCTION_NAME_MAP.put(X86Instruction.CONDITIONAL_JUMP, "j");
     }
@@ -108,20 +109,22 @@ public final class X86InstructionLiteralFormatter {
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.ADD, "addl");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.SUB, "subl");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.MULT, "imull");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.WIDENING_MULT, "imull");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.LOAD_EFFECTIVE_ADDRESS, "leal");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.DIV, "idivl");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.SIGN_EXTEND, "cltd");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.RETURN, "ret");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.PUSH, "push");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.POP, "pop");
-        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.LEFT_SHIFT, "sal");
-        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.RIGHT_SHIFT, "sar");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.LEFT_SHIFT, "sall");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.RIGHT_SHIFT, "sarl");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.COMPARISON, "cmpl");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.SET_CONDITION_CODE, "set");
-        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_AND, "and");
-        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_OR, "or");
-        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_XOR, "xor");
-        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_NOT, "not");
-        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.NEGATION, "neg");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_AND, "andl");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_OR, "orl");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_XOR, "xorl");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_NOT, "notl");
+        BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.NEGATION, "negl");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.UNCONDITIONAL_JUMP, "jmp");
         BIT_32_INSTRUCTION_NAME_MAP.put(X86Instruction.CONDITIONAL_JUMP, "j");
     }
@@ -133,20 +136,22 @@ public final class X86InstructionLiteralFormatter {
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.ADD, "addq");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.SUB, "subq");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.MULT, "imulq");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.WIDENING_MULT, "imulq");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.LOAD_EFFECTIVE_ADDRESS, "leaq");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.DIV, "idivq");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.SIGN_EXTEND, "cqo");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.RETURN, "ret");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.PUSH, "push");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.POP, "pop");
-        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.LEFT_SHIFT, "sal");
-        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.RIGHT_SHIFT, "sar");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.LEFT_SHIFT, "salq");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.RIGHT_SHIFT, "sarq");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.COMPARISON, "cmpq");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.SET_CONDITION_CODE, "set");
-        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_AND, "and");
-        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_OR, "or");
-        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_XOR, "xor");
-        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_NOT, "not");
-        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.NEGATION, "neg");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_AND, "andq");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_OR, "orq");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_XOR, "xorq");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.BITWISE_NOT, "notq");
+        BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.NEGATION, "negq");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.UNCONDITIONAL_JUMP, "jmp");
         BIT_64_INSTRUCTION_NAME_MAP.put(X86Instruction.CONDITIONAL_JUMP, "j");
     }
@@ -0,0 +1,529 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.backend.regalloc.InstructionParameter;
+import edu.kit.kastel.vads.compiler.pipeline.AssemblerException;
+import edu.kit.kastel.vads.compiler.pipeline.CompilationResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Encodes the instructions directly to x86-64 machine code.
+// Jumps and calls always use 32 bit displacements, they are patched once all labels are known.
+public class X86MachineCodeGenerator implements X86InstructionGenerator {
+
+    private static final int REX = 0x40;
+    private static final int REX_W = 0x08;
+    private static final int REX_R = 0x04;
+    private static final int REX_X = 0x02;
+    private static final int REX_B = 0x01;
+
+    private static final int MOD_DISPLACEMENT_8 = 0x40;
+    private static final int MOD_DISPLACEMENT_32 = 0x80;
+    private static final int MOD_REGISTER = 0xC0;
+    // ModRM r/m value announcing a SIB byte
+    private static final int RM_SIB = 0x04;
+
+    // Opcode extensions (ModRM reg field) of the group instructions
+    private static final int EXTENSION_ADD = 0;
+    private static final int EXTENSION_OR = 1;
+    private static final int EXTENSION_AND = 4;
+    private static final int EXTENSION_SUB = 5;
+    private static final int EXTENSION_XOR = 6;
+    private static final int EXTENSION_CMP = 7;
+    private static final int EXTENSION_NOT = 2;
+    private static final int EXTENSION_NEG = 3;
+    private static final int EXTENSION_IMUL = 5;
+    private static final int EXTENSION_IDIV = 7;
+    private static final int EXTENSION_SAL = 4;
+    private static final int EXTENSION_SAR = 7;
+
+    private byte[] code;
+    private int size;
+    private final Map<String, Integer> labels;
+    private final List<LabelReference> labelReferences;
+
+    public X86MachineCodeGenerator() {
+        this.code = new byte[256];
+        this.size = 0;
+        this.labels = new HashMap<>();
+        this.labelReferences = new ArrayList<>();
+    }
+
+    // Directives only matter for the assembler
+    @Override
+    public X86InstructionGenerator generateGlobal(String label) {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateFile(int fileNumber, String filename) {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateLOCAnnotation(int fileNumber, int lineNumber, int columnNumber) {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateEmptyLine() {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateText() {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateNonExecutableStack() {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateComment(String comment, boolean generateIndentationSpace) {
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateLabel(String label) {
+        defineLabel(label, size);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateSyscall() {
+        emit(0x0F, 0x05);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateCall(String label) {
+        emit(0xE8);
+        emitLabelReference(label);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generatePushInstruction(InstructionParameter registerToPush, BitSize bitSize) {
+        switch (registerToPush) {
+            case X86Register register -> emitRegisterInOpcode(0x50, register);
+            // push and pop default to 64 bit operands and need no REX.W
+            case StackSlot _ -> emitModRm(6, false, registerToPush, BitSize.BIT_32, 0xFF);
+            case IntegerConstantParameter constant -> {
+                emit(0x68);
+                emitInt(constant.getValue());
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generatePopInstruction(InstructionParameter registerToPop, BitSize bitSize) {
+        switch (registerToPop) {
+            case X86Register register -> emitRegisterInOpcode(0x58, register);
+            case StackSlot _ -> emitModRm(0, false, registerToPop, BitSize.BIT_32, 0x8F);
+            case IntegerConstantParameter _ -> throw unsupported("pop", registerToPop);
+        }
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateIntConstInstruction(InstructionParameter targetRegister, int constant, BitSize bitSize) {
+        return generateMoveInstruction(new IntegerConstantParameter(constant), targetRegister, bitSize);
+    }
+
+    @Override
+    public X86InstructionGenerator generateReturnInstruction() {
+        emit(0xC3);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateAdditionInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        emitArithmetic(EXTENSION_ADD, sourceRegister, destinationRegister, bitSize);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateSubtractionInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        emitArithmetic(EXTENSION_SUB, sourceRegister, destinationRegister, bitSize);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateMultiplicationInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        if (!(destinationRegister instanceof X86Register destination) || bitSize == BitSize.BIT_8) {
+            throw unsupported("imul", destinationRegister);
+        }
+
+        if (sourceRegister instanceof IntegerConstantParameter constant) {
+            if (fitsInByte(constant.getValue())) {
+                emitModRm(registerNumber(destination), true, destination, bitSize, 0x6B);
+                emit(constant.getValue());
+            } else {
+                emitModRm(registerNumber(destination), true, destination, bitSize, 0x69);
+                emitInt(constant.getValue());
+            }
+        } else {
+            emitModRm(registerNumber(destination), true, sourceRegister, bitSize, 0x0F, 0xAF);
+        }
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateWideningMultiplicationInstruction(InstructionParameter factor, BitSize bitSize) {
+        emitModRm(EXTENSION_IMUL, false, factor, bitSize, bitSize == BitSize.BIT_8 ? 0xF6 : 0xF7);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateLoadEffectiveAddressInstruction(X86Register base, X86Register index, int scale, X86Register destinationRegister, BitSize bitSize) {
+        if (bitSize == BitSize.BIT_8 || index == X86Register.REG_SP) {
+            throw unsupported("lea", index);
+        }
+
+        int baseNumber = registerNumber(base);
+        int indexNumber = registerNumber(index);
+        int destinationNumber = registerNumber(destinationRegister);
+        int rex = bitSize == BitSize.BIT_64 ? REX_W : 0;
+        rex |= destinationNumber >= 8 ? REX_R : 0;
+        rex |= indexNumber >= 8 ? REX_X : 0;
+        rex |= baseNumber >= 8 ? REX_B : 0;
+        if (rex != 0) {
+            emit(REX | rex);
+        }
+
+        // BP and R13 as base can only be encoded with a displacement, a zero byte is the shortest
+        boolean displacement = (baseNumber & 7) == registerNumber(X86Register.REG_BP);
+        int modRm = (displacement ? MOD_DISPLACEMENT_8 : 0) | (destinationNumber & 7) << 3 | RM_SIB;
+        int sib = Integer.numberOfTrailingZeros(scale) << 6 | (indexNumber & 7) << 3 | (baseNumber & 7);
+        emit(0x8D, modRm, sib);
+        if (displacement) {
+            emit(0);
+        }
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateIntegerDivisionInstruction(InstructionParameter divisorRegister, BitSize bitSize) {
+        emitModRm(EXTENSION_IDIV, false, divisorRegister, bitSize, bitSize == BitSize.BIT_8 ? 0xF6 : 0xF7);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateSignExtendInstruction(BitSize bitSize) {
+        switch (bitSize) {
+            case BIT_8 -> emit(0x66, 0x98);
+            case BIT_32 -> emit(0x99);
+            case BIT_64 -> emit(REX | REX_W, 0x99);
+        }
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateMoveInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        boolean byteSized = bitSize == BitSize.BIT_8;
+        if (sourceRegister instanceof IntegerConstantParameter constant) {
+            emitModRm(0, false, destinationRegister, bitSize, byteSized ? 0xC6 : 0xC7);
+            emitImmediate(constant.getValue(), bitSize);
+        } else if (sourceRegister instanceof X86Register source) {
+            emitModRm(registerNumber(source), true, destinationRegister, bitSize, byteSized ? 0x88 : 0x89);
+        } else if (destinationRegister instanceof X86Register destination) {
+            emitModRm(registerNumber(destination), true, sourceRegister, bitSize, byteSized ? 0x8A : 0x8B);
+        } else {
+            throw unsupported("mov", destinationRegister);
+        }
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateLeftShiftInstruction(InstructionParameter shiftCount, InstructionParameter destinationRegister, BitSize bitSize) {
+        emitShift(EXTENSION_SAL, shiftCount, destinationRegister, bitSize);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateRightShiftInstruction(InstructionParameter shiftCount, InstructionParameter destinationRegister, BitSize bitSize) {
+        emitShift(EXTENSION_SAR, shiftCount, destinationRegister, bitSize);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateComparisonInstruction(InstructionParameter leftRegister, InstructionParameter rightRegister, BitSize bitSize) {
+        // AT&T operand order: compares the right operand against the left one
+        emitArithmetic(EXTENSION_CMP, leftRegister, rightRegister, bitSize);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateSetConditionCodeInstruction(InstructionParameter destinationRegister, X86ConditionCode conditionCode) {
+        emitModRm(0, false, destinationRegister, BitSize.BIT_8, 0x0F, 0x90 | conditionCodeNumber(conditionCode));
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateBitwiseAndInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        emitArithmetic(EXTENSION_AND, sourceRegister, destinationRegister, bitSize);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateBitwiseOrInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        emitArithmetic(EXTENSION_OR, sourceRegister, destinationRegister, bitSize);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateBitwiseXorInstruction(InstructionParameter sourceRegister, InstructionParameter destinationRegister, BitSize bitSize) {
+        emitArithmetic(EXTENSION_XOR, sourceRegister, destinationRegister, bitSize);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateBitwiseNotInstruction(InstructionParameter destinationRegister, BitSize bitSize) {
+        emitModRm(EXTENSION_NOT, false, destinationRegister, bitSize, bitSize == BitSize.BIT_8 ? 0xF6 : 0xF7);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateNegationInstruction(InstructionParameter destinationRegister, BitSize bitSize) {
+        emitModRm(EXTENSION_NEG, false, destinationRegister, bitSize, bitSize == BitSize.BIT_8 ? 0xF6 : 0xF7);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateUnconditionalJumpInstruction(String label, BitSize bitSize) {
+        emit(0xE9);
+        emitLabelReference(label);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator generateConditionalJumpInstruction(X86ConditionCode conditionCode, String label, BitSize bitSize) {
+        emit(0x0F, 0x80 | conditionCodeNumber(conditionCode));
+        emitLabelReference(label);
+        return this;
+    }
+
+    @Override
+    public X86InstructionGenerator createEmpty() {
+        return new X86MachineCodeGenerator();
+    }
+
+    @Override
+    public X86InstructionGenerator generateFrom(X86InstructionGenerator instructionGenerator) {
+        X86MachineCodeGenerator other = (X86MachineCodeGenerator) instructionGenerator;
+        int base = size;
+
+        ensureCapacity(other.size);
+        System.arraycopy(other.code, 0, code, size, other.size);
+        size += other.size;
+
+        for (Map.Entry<String, Integer> label : other.labels.entrySet()) {
+            defineLabel(label.getKey(), base + label.getValue());
+        }
+        for (LabelReference reference : other.labelReferences) {
+            labelReferences.add(new LabelReference(reference.label(), base + reference.offset()));
+        }
+        return this;
+    }
+
+    public int labelOffset(String label) {
+        Integer offset = labels.get(label);
+        if (offset == null) {
+            throw new IllegalStateException("Undefined label " + label);
+        }
+        return offset;
+    }
+
+    // Returns the code with all jump and call displacements resolved
+    public byte[] machineCode() {
+        byte[] result = Arrays.copyOf(code, size);
+        for (LabelReference reference : labelReferences) {
+            int displacement = labelOffset(reference.label()) - (reference.offset() + 4);
+            writeInt(result, reference.offset(), displacement);
+        }
+        return result;
+    }
+
+    private void defineLabel(String label, int offset) {
+        if (labels.putIfAbsent(label, offset) != null) {
+            throw new IllegalStateException("Duplicate label " + label);
+        }
+    }
+
+    private void emitArithmetic(int extension, InstructionParameter source, InstructionParameter destination, BitSize bitSize) {
+        boolean byteSized = bitSize == BitSize.BIT_8;
+        // The register forms of add, or, and, sub, xor and cmp are laid out at multiples of 8
+        int baseOpcode = extension << 3;
+
+        if (source instanceof IntegerConstantParameter constant) {
+            if (byteSized) {
+                emitModRm(extension, false, destination, bitSize, 0x80);
+                emit(constant.getValue());
+            } else if (fitsInByte(constant.getValue())) {
+                emitModRm(extension, false, destination, bitSize, 0x83);
+                emit(constant.getValue());
+            } else {
+                emitModRm(extension, false, destination, bitSize, 0x81);
+                emitInt(constant.getValue());
+            }
+        } else if (source instanceof X86Register sourceRegister) {
+            emitModRm(registerNumber(sourceRegister), true, destination, bitSize, baseOpcode | (byteSized ? 0x00 : 0x01));
+        } else if (destination instanceof X86Register destinationRegister) {
+            emitModRm(registerNumber(destinationRegister), true, source, bitSize, baseOpcode | (byteSized ? 0x02 : 0x03));
+        } else {
+            throw unsupported("arithmetic", destination);
+        }
+    }
+
+    private void emitShift(int extension, InstructionParameter shiftCount, InstructionParameter destination, BitSize bitSize) {
+        boolean byteSized = bitSize == BitSize.BIT_8;
+        switch (shiftCount) {
+            case IntegerConstantParameter constant -> {
+                emitModRm(extension, false, destination, bitSize, byteSized ? 0xC0 : 0xC1);
+                emit(constant.getValue());
+            }
+            case X86Register register when register == X86Register.REG_CX ->
+                    emitModRm(extension, false, destination, bitSize, byteSized ? 0xD2 : 0xD3);
+            default -> throw unsupported("shift count", shiftCount);
+        }
+    }
+
+    private void emitImmediate(int value, BitSize bitSize) {
+        if (bitSize == BitSize.BIT_8) {
+            emit(value);
+        } else {
+            // 64 bit operations sign extend their 32 bit immediate
+            emitInt(value);
+        }
+    }
+
+    private void emitRegisterInOpcode(int opcode, X86Register register) {
+        int number = registerNumber(register);
+        if (number >= 8) {
+            emit(REX | REX_B);
+        }
+        emit(opcode | (number & 7));
+    }
+
+    private void emitModRm(int reg, boolean regIsRegister, InstructionParameter rm, BitSize bitSize, int... opcode) {
+        int rex = bitSize == BitSize.BIT_64 ? REX_W : 0;
+        // spl, bpl, sil and dil are only addressable with a REX prefix, ah to bh are encoded without it
+        boolean rexRequired = bitSize == BitSize.BIT_8 && regIsRegister && reg >= 4 && reg < 8;
+        if (reg >= 8) {
+            rex |= REX_R;
+        }
+
+        int modRm;
+        int displacement = 0;
+        switch (rm) {
+            case X86Register register -> {
+                int number = registerNumber(register);
+                if (number >= 8) {
+                    rex |= REX_B;
+                }
+                rexRequired |= bitSize == BitSize.BIT_8 && number >= 4 && number < 8;
+                modRm = MOD_REGISTER | (reg & 7) << 3 | (number & 7);
+            }
+            case StackSlot stackSlot -> {
+                displacement = stackSlot.offset();
+                int mod = fitsInByte(displacement) ? MOD_DISPLACEMENT_8 : MOD_DISPLACEMENT_32;
+                modRm = mod | (reg & 7) << 3 | registerNumber(X86Register.REG_BP);
+            }
+            case IntegerConstantParameter _ -> throw unsupported("operand", rm);
+        }
+
+        if (rex != 0 || rexRequired) {
+            emit(REX | rex);
+        }
+        emit(opcode);
+        emit(modRm);
+        if (rm instanceof StackSlot) {
+            if (fitsInByte(displacement)) {
+                emit(displacement);
+            } else {
+                emitInt(displacement);
+            }
+        }
+    }
+
+    private void emitLabelReference(String label) {
+        labelReferences.add(new LabelReference(label, size));
+        emitInt(0);
+    }
+
+    private void emit(int... bytes) {
+        ensureCapacity(bytes.length);
+        for (int value : bytes) {
+            code[size++] = (byte) value;
+        }
+    }
+
+    private void emitInt(int value) {
+        ensureCapacity(4);
+        writeInt(code, size, value);
+        size += 4;
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        if (size + additionalBytes > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + additionalBytes));
+        }
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >> 8);
+        target[offset + 2] = (byte) (value >> 16);
+        target[offset + 3] = (byte) (value >> 24);
+    }
+
+    private static boolean fitsInByte(int value) {
+        return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+    }
+
+    // Reported like a failing gcc, the code generator should never emit such an instruction
+    private static AssemblerException unsupported(String instruction, InstructionParameter parameter) {
+        return new AssemblerException("Cannot encode " + instruction + " with operand " + parameter,
+                CompilationResult.INTERNAL_ERROR_EXIT_CODE);
+    }
+
+    private static int registerNumber(X86Register register) {
+        return switch (register) {
+            case REG_AX -> 0;
+            case REG_CX -> 1;
+            case REG_DX -> 2;
+            case REG_BX -> 3;
+            case REG_SP -> 4;
+            case REG_BP -> 5;
+            case REG_SI -> 6;
+            case REG_DI -> 7;
+            case REG_8 -> 8;
+            case REG_9 -> 9;
+            case REG_10 -> 10;
+            case REG_11 -> 11;
+            case REG_12 -> 12;
+            case REG_13 -> 13;
+            case REG_14 -> 14;
+            case REG_15 -> 15;
+        };
+    }
+
+    private static int conditionCodeNumber(X86ConditionCode conditionCode) {
+        return switch (conditionCode) {
+            case EQUAL -> 0x4;
+            case NOT_EQUAL -> 0x5;
+            case LESS_THAN -> 0xC;
+            case GREATER_THAN_OR_EQUAL -> 0xD;
+            case LESS_THAN_OR_EQUAL -> 0xE;
+            case GREATER_THAN -> 0xF;
+        };
+    }
+
+    private record LabelReference(String label, int offset) { }
+}
@@ -2,7 +2,7 @@ package edu.kit.kastel.vads.compiler.backend.aasm;
 
 import edu.kit.kastel.vads.compiler.backend.regalloc.Register;
 
-import java.util.Set;
+import java.util.List;
 
 public enum X86Register implements Register {
     REG_AX,
@@ -22,9 +22,15 @@ public enum X86Register implements Register {
     REG_14,
     REG_15;
 
-    public static Set<Register> getGeneralPurposeRegisters() {
-        return Set.of(
+    // Every register except the stack and frame pointer in declaration order, RegisterConstraints keeps values out of
+    // the implicitly used registers where instructions need them. The allocators hand out registers in list order,
+    // so a fixed order keeps the generated code the same from run to run.
+    public static List<Register> getGeneralPurposeRegisters() {
+        return List.of(
+                REG_AX,
                 REG_BX,
+                REG_CX,
+                REG_DX,
                 REG_SI,
                 REG_DI,
                 REG_8,
@@ -36,4 +42,9 @@ public enum X86Register implements Register {
                 REG_14,
                 REG_15);
     }
+
+    // Registers idiv and cdq (AX, DX) and variable shifts (CX) use without naming them as operands
+    public static List<Register> getImplicitlyUsedRegisters() {
+        return List.of(REG_AX, REG_CX, REG_DX);
+    }
 }
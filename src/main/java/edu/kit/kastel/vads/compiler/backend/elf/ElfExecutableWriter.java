@@ -0,0 +1,69 @@
+package edu.kit.kastel.vads.compiler.backend.elf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+// Writes a static x86-64 ELF executable consisting of a single read/execute segment.
+// The code does not depend on libc, so the entry point is jumped to directly by the kernel.
+public final class ElfExecutableWriter {
+    private static final long BASE_ADDRESS = 0x400000;
+    private static final int ELF_HEADER_SIZE = 64;
+    private static final int PROGRAM_HEADER_SIZE = 56;
+    private static final int PROGRAM_HEADER_COUNT = 2;
+    private static final int CODE_OFFSET = ELF_HEADER_SIZE + PROGRAM_HEADER_COUNT * PROGRAM_HEADER_SIZE;
+
+    private static final short ET_EXEC = 2;
+    private static final short EM_X86_64 = 0x3E;
+    private static final int PT_LOAD = 1;
+    private static final int PT_GNU_STACK = 0x6474E551;
+    private static final int PF_X = 1;
+    private static final int PF_W = 2;
+    private static final int PF_R = 4;
+
+    private ElfExecutableWriter() {
+    }
+
+    public static void write(Path outputFilePath, byte[] code, int entryPointOffset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CODE_OFFSET + code.length).order(ByteOrder.LITTLE_ENDIAN);
+
+        // e_ident: magic, 64 bit, little endian, ELF version 1, System V ABI
+        buffer.put(new byte[] {0x7F, 'E', 'L', 'F', 2, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        buffer.putShort(ET_EXEC)
+                .putShort(EM_X86_64)
+                .putInt(1)
+                .putLong(BASE_ADDRESS + CODE_OFFSET + entryPointOffset)
+                .putLong(ELF_HEADER_SIZE) // program header table offset
+                .putLong(0) // no section headers
+                .putInt(0)
+                .putShort((short) ELF_HEADER_SIZE)
+                .putShort((short) PROGRAM_HEADER_SIZE)
+                .putShort((short) PROGRAM_HEADER_COUNT)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0);
+
+        // The headers are loaded as well, which keeps file offsets and addresses congruent
+        putProgramHeader(buffer, PT_LOAD, PF_R | PF_X, 0, BASE_ADDRESS, CODE_OFFSET + code.length, 0x1000);
+        putProgramHeader(buffer, PT_GNU_STACK, PF_R | PF_W, 0, 0, 0, 16);
+
+        buffer.put(code);
+
+        Files.write(outputFilePath, buffer.array());
+        Files.setPosixFilePermissions(outputFilePath, PosixFilePermissions.fromString("rwxr-xr-x"));
+    }
+
+    private static void putProgramHeader(ByteBuffer buffer, int type, int flags, long offset, long address, long size, long alignment) {
+        buffer.putInt(type)
+                .putInt(flags)
+                .putLong(offset)
+                .putLong(address) // virtual address
+                .putLong(address) // physical address
+                .putLong(size) // size in file
+                .putLong(size) // size in memory
+                .putLong(alignment);
+    }
+}
@@ -0,0 +1,28 @@
+package edu.kit.kastel.vads.compiler.backend.regalloc;
+
+import java.util.Arrays;
+
+// Which register allocator assigns registers to SSA values
+public enum RegisterAllocationMode {
+    // Colors the chordal interference graph in maximum cardinality search order (AasmRegisterAllocator)
+    CHORDAL("chordal"),
+    // Assigns registers in one pass over live intervals, for fast compiles of large functions
+    LINEAR_SCAN("linear-scan");
+
+    private final String id;
+
+    RegisterAllocationMode(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public static RegisterAllocationMode fromId(String id) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.id.equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown register allocation mode " + id));
+    }
+}
@@ -0,0 +1,98 @@
+package edu.kit.kastel.vads.compiler.batch;
+
+import edu.kit.kastel.vads.compiler.pipeline.Assembler;
+import edu.kit.kastel.vads.compiler.pipeline.CompilationResult;
+import edu.kit.kastel.vads.compiler.pipeline.CompilerPipeline;
+import edu.kit.kastel.vads.compiler.pipeline.CompilerPipelineRunInfo;
+import edu.kit.kastel.vads.compiler.pipeline.PendingAssembly;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+
+// Compiles every entry on its own virtual thread. The CPU-bound phases and the gcc processes are limited
+// separately, so files can be assembled while others are still being compiled. Every entry is compiled with the
+// options of the run info template, only its files are replaced.
+public final class BatchCompiler {
+    private final CompilerPipeline pipeline;
+    private final CompilerPipelineRunInfo runInfoTemplate;
+    private final Semaphore compilePermits;
+    private final Semaphore gccPermits;
+
+    public BatchCompiler(CompilerPipeline pipeline, CompilerPipelineRunInfo runInfoTemplate, int compileJobs, int gccJobs) {
+        this.pipeline = pipeline;
+        this.runInfoTemplate = runInfoTemplate;
+        this.compilePermits = new Semaphore(compileJobs);
+        this.gccPermits = new Semaphore(gccJobs);
+    }
+
+    // Reports every result in manifest order as soon as it and all results before it are available
+    public List<CompilationResult> compile(BatchManifest manifest, BiConsumer<BatchEntry, CompilationResult> resultConsumer) {
+        List<CompilationResult> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<CompilationResult>> futures = new ArrayList<>();
+            for (BatchEntry entry : manifest.entries()) {
+                futures.add(executor.submit(() -> compile(entry)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                CompilationResult result = awaitResult(futures.get(i));
+                resultConsumer.accept(manifest.entries().get(i), result);
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private CompilationResult compile(BatchEntry entry) {
+        CompilerPipelineRunInfo runInfo = runInfoTemplate.withFiles(entry.sourceFilePath(), entry.outputFilePath());
+        return CompilerPipeline.compile(() -> {
+            if (runInfo.assembler() == Assembler.GCC_PIPE) {
+                // gcc runs during code generation, so the gcc permit is taken first and held with the compile permit.
+                // No entry takes them in the other order, so they can not deadlock.
+                withPermit(gccPermits, () -> withPermit(compilePermits, () -> pipeline.generateCode(runInfo)));
+                return;
+            }
+            Optional<PendingAssembly> pendingAssembly = withPermit(compilePermits, () -> pipeline.generateCode(runInfo));
+            if (pendingAssembly.isPresent()) {
+                withPermit(gccPermits, () -> {
+                    pipeline.assemble(pendingAssembly.get(), runInfo);
+                    return null;
+                });
+            }
+        });
+    }
+
+    private static <T> T withPermit(Semaphore permits, PermittedAction<T> action) throws IOException {
+        permits.acquireUninterruptibly();
+        try {
+            return action.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static CompilationResult awaitResult(Future<CompilationResult> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // Compiler bugs only fail their own file
+            return CompilationResult.failure(CompilationResult.INTERNAL_ERROR_EXIT_CODE, e.getCause().toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompilationResult.failure(CompilationResult.INTERNAL_ERROR_EXIT_CODE, "Interrupted");
+        }
+    }
+
+    @FunctionalInterface
+    private interface PermittedAction<T> {
+        T run() throws IOException;
+    }
+}
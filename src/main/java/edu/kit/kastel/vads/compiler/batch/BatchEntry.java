@@ -0,0 +1,5 @@
+package edu.kit.kastel.vads.compiler.batch;
+
+import java.nio.file.Path;
+
+public record BatchEntry(Path sourceFilePath, Path outputFilePath) { }
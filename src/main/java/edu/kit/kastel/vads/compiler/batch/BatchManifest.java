@@ -0,0 +1,34 @@
+package edu.kit.kastel.vads.compiler.batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// One "<input>\t<output>" pair per line, blank lines and lines starting with # are ignored.
+// Relative paths are resolved against the directory of the manifest.
+public record BatchManifest(List<BatchEntry> entries) {
+
+    public static BatchManifest read(Path manifestPath) throws IOException {
+        Path baseDirectory = manifestPath.toAbsolutePath().getParent();
+        List<BatchEntry> entries = new ArrayList<>();
+
+        List<String> lines = Files.readAllLines(manifestPath);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] paths = line.split("\t");
+            if (paths.length != 2) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " of " + manifestPath
+                        + " does not contain a tab separated input and output file");
+            }
+            entries.add(new BatchEntry(baseDirectory.resolve(paths[0].strip()), baseDirectory.resolve(paths[1].strip())));
+        }
+
+        return new BatchManifest(List.copyOf(entries));
+    }
+}
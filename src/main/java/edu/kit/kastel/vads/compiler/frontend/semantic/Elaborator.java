@@ -438,6 +438,9 @@ public class Elaborator implements
                 functionSymbol,
                 functionScope,
                 parameters);
+        if (functionSymbol.name().equals(MAIN_FUNCTION_NAME)) {
+            typedFunction.markAsMainFunction();
+        }
         return typedFunction;
     }
 
@@ -78,12 +78,16 @@ public final class TypedPostorderVisitor<TContext> implements TypedVisitor<TCont
 
     @Override
     public void visit(TypedFunctionCall functionCall, TContext tContext) {
-
+        for (TypedArgument argument : functionCall.arguments()) {
+            argument.accept(this, tContext);
+        }
+        visitor.visit(functionCall, tContext);
     }
 
     @Override
     public void visit(TypedArgument argument, TContext tContext) {
-
+        argument.expression().accept(this, tContext);
+        visitor.visit(argument, tContext);
     }
 
     @Override
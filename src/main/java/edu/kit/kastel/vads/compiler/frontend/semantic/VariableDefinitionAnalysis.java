@@ -125,6 +125,11 @@ class VariableDefinitionAnalysis implements TypedResultVisitor<VariableDefinitio
     public List<Symbol> visit(TypedFunction function, VariableDefinitionContext context) {
         context.pushScope();
 
+        for (TypedParameter parameter : function.parameters()) {
+            context.declareSymbol(parameter.symbol());
+            context.defineSymbol(parameter.symbol());
+        }
+
         function.body().accept(this, context);
 
         context.popScope();
@@ -133,12 +138,18 @@ class VariableDefinitionAnalysis implements TypedResultVisitor<VariableDefinitio
     }
 
     @Override
-    public List<Symbol> visit(TypedFunctionCall functionCall, VariableDefinitionContext variableDefinitionContext) {
+    public List<Symbol> visit(TypedFunctionCall functionCall, VariableDefinitionContext context) {
+        for (TypedArgument argument : functionCall.arguments()) {
+            argument.accept(this, context);
+        }
+
         return List.of();
     }
 
     @Override
-    public List<Symbol> visit(TypedArgument argument, VariableDefinitionContext variableDefinitionContext) {
+    public List<Symbol> visit(TypedArgument argument, VariableDefinitionContext context) {
+        argument.expression().accept(this, context);
+
         return List.of();
     }
 
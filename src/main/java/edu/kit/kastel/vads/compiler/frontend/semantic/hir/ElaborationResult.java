@@ -149,6 +149,14 @@ public sealed interface ElaborationResult permits ElaborationResult.ArgumentResu
             return functionCall;
         }
 
+        @Override
+        public List<TypedStatement> statements() {
+            return List.of(functionCall);
+        }
+
+        @Override
+        public TypedStatement statementOrBlock() { return functionCall; }
+
         @Override
         public TypedExpression expression() {
             return functionCall;
@@ -4,8 +4,8 @@ import org.jspecify.annotations.Nullable;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 
+// Compared by identity, calls refer to the function they call and recursive functions contain calls to themselves
 public final class TypedFunction implements TypedNode {
     private final Symbol symbol;
     private final List<TypedParameter> parameters;
@@ -60,27 +60,10 @@ public final class TypedFunction implements TypedNode {
         return isMainFunction;
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (obj == this) return true;
-        if (obj == null || obj.getClass() != this.getClass()) return false;
-        var that = (TypedFunction) obj;
-        return Objects.equals(this.symbol, that.symbol) &&
-                Objects.equals(this.body, that.body) &&
-                Objects.equals(this.declaringScope, that.declaringScope) &&
-                this.isMainFunction == that.isMainFunction;
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(symbol, body, declaringScope, isMainFunction);
-    }
-
     @Override
     public String toString() {
         return "TypedFunction[" +
                 "symbol=" + symbol + ", " +
-                "body=" + body + ", " +
                 "declaringScope=" + declaringScope + ", " +
                 "isMainFunction=" + isMainFunction + ']';
     }
@@ -0,0 +1,51 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import java.util.*;
+
+// Block orders used to visit the control flow graph so that most blocks are seen after their predecessors
+public final class BlockOrder {
+    private BlockOrder() {
+    }
+
+    // Blocks reachable from the start block, every block comes before its successors unless the edge is a back edge.
+    // Iterative, functions can contain thousands of blocks
+    public static List<IrBlock> reversePostorder(IrBlock startBlock) {
+        List<IrBlock> postorder = new ArrayList<>();
+        BitSet visited = new BitSet();
+        Deque<Iterator<IrBlock>> successorStack = new ArrayDeque<>();
+        Deque<IrBlock> blockStack = new ArrayDeque<>();
+
+        visited.set(startBlock.id());
+        blockStack.push(startBlock);
+        successorStack.push(startBlock.getSuccessorBlocks().iterator());
+        while (!blockStack.isEmpty()) {
+            Iterator<IrBlock> successors = successorStack.peek();
+            if (successors.hasNext()) {
+                IrBlock successor = successors.next();
+                if (!visited.get(successor.id())) {
+                    visited.set(successor.id());
+                    blockStack.push(successor);
+                    successorStack.push(successor.getSuccessorBlocks().iterator());
+                }
+            } else {
+                postorder.add(blockStack.pop());
+                successorStack.pop();
+            }
+        }
+
+        return postorder.reversed();
+    }
+
+    // Reverse postorder of the reachable blocks followed by the unreachable ones in declaration order
+    public static List<IrBlock> reversePostorder(IrFunction function) {
+        List<IrBlock> order = new ArrayList<>(reversePostorder(function.startBlock()));
+        BitSet ordered = new BitSet();
+        order.forEach(block -> ordered.set(block.id()));
+        for (IrBlock block : function.blocks()) {
+            if (!ordered.get(block.id())) {
+                order.add(block);
+            }
+        }
+        return order;
+    }
+}
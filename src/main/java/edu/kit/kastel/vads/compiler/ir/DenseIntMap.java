@@ -0,0 +1,41 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import java.util.Arrays;
+
+// Map from values or blocks of one function to ints without boxing, absent keys map to the missing value
+public final class DenseIntMap<K extends DenselyNumbered> {
+    private final int missingValue;
+    private int[] values;
+
+    public DenseIntMap(int capacity, int missingValue) {
+        this.missingValue = missingValue;
+        this.values = new int[Math.max(capacity, 1)];
+        Arrays.fill(values, missingValue);
+    }
+
+    public int get(K key) {
+        int id = key.id();
+        return id < values.length ? values[id] : missingValue;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != missingValue;
+    }
+
+    public void put(K key, int value) {
+        int id = key.id();
+        if (id >= values.length) {
+            int oldLength = values.length;
+            values = Arrays.copyOf(values, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(values, oldLength, values.length, missingValue);
+        }
+        values[id] = value;
+    }
+
+    // Adds delta to the value of the key, which must be present
+    public int increment(K key, int delta) {
+        int value = get(key) + delta;
+        values[key.id()] = value;
+        return value;
+    }
+}
@@ -0,0 +1,122 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Map from values or blocks of one function to V, stored in an array indexed by the id of the key.
+// Grows on demand, so ids created after construction are fine as well.
+public final class DenseMap<K extends DenselyNumbered, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private @Nullable Object[] keys;
+    private @Nullable Object[] values;
+    private int size;
+
+    public DenseMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DenseMap(int capacity) {
+        this.keys = new Object[Math.max(capacity, 1)];
+        this.values = new Object[Math.max(capacity, 1)];
+    }
+
+    private DenseMap(@Nullable Object[] keys, @Nullable Object[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(K key) {
+        int id = key.id();
+        return id < values.length ? (V) values[id] : null;
+    }
+
+    public V getOrDefault(K key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    public boolean containsKey(K key) {
+        int id = key.id();
+        return id < keys.length && keys[id] != null;
+    }
+
+    public void put(K key, V value) {
+        int id = key.id();
+        ensureCapacity(id);
+        if (keys[id] == null) {
+            size++;
+        }
+        keys[id] = key;
+        values[id] = value;
+    }
+
+    public V computeIfAbsent(K key, Function<K, V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void remove(K key) {
+        int id = key.id();
+        if (id < keys.length && keys[id] != null) {
+            keys[id] = null;
+            values[id] = null;
+            size--;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Visits the entries in id order
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<K, V> action) {
+        for (int id = 0; id < keys.length; id++) {
+            if (keys[id] != null) {
+                action.accept((K) keys[id], (V) values[id]);
+            }
+        }
+    }
+
+    // Keys in id order
+    public List<K> keys() {
+        List<K> result = new ArrayList<>(size);
+        forEach((key, _) -> result.add(key));
+        return result;
+    }
+
+    // Values in id order of their keys
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        forEach((_, value) -> result.add(value));
+        return result;
+    }
+
+    public DenseMap<K, V> copy() {
+        return new DenseMap<>(keys.clone(), values.clone(), size);
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= keys.length) {
+            int capacity = Math.max(id + 1, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+}
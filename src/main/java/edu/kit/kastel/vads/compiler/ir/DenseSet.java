@@ -0,0 +1,146 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+// Set of values or blocks of one function stored as a bitset over their ids. Elements are looked up by id in the
+// universe when iterating, so all sets of a function share one id table instead of holding references themselves.
+public final class DenseSet<K extends DenselyNumbered> extends AbstractSet<K> {
+    private final IntFunction<K> universe;
+    private final BitSet bits;
+
+    public DenseSet(IntFunction<K> universe) {
+        this(universe, new BitSet());
+    }
+
+    // Set view of the given bits, changes write through
+    public DenseSet(IntFunction<K> universe, BitSet bits) {
+        this.universe = universe;
+        this.bits = bits;
+    }
+
+    public static DenseSet<SSAValue> ofValues(IrFunction function) {
+        return new DenseSet<>(function::ssaValue);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof DenselyNumbered element && bits.get(element.id());
+    }
+
+    @Override
+    public boolean add(K element) {
+        if (bits.get(element.id())) {
+            return false;
+        }
+        bits.set(element.id());
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        bits.clear(((DenselyNumbered) o).id());
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends K> elements) {
+        if (!(elements instanceof DenseSet<?> other)) {
+            return super.addAll(elements);
+        }
+
+        BitSet added = (BitSet) other.bits.clone();
+        added.andNot(bits);
+        if (added.isEmpty()) {
+            return false;
+        }
+        bits.or(added);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        if (!(elements instanceof DenseSet<?> other)) {
+            return super.removeAll(elements);
+        }
+
+        if (!bits.intersects(other.bits)) {
+            return false;
+        }
+        bits.andNot(other.bits);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        bits.clear();
+    }
+
+    @Override
+    public int size() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    // Iterates in id order
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<>() {
+            private int next = bits.nextSetBit(0);
+            private int current = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public K next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                current = next;
+                next = bits.nextSetBit(next + 1);
+                return universe.apply(current);
+            }
+
+            @Override
+            public void remove() {
+                if (current < 0) {
+                    throw new IllegalStateException();
+                }
+                bits.clear(current);
+                current = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof DenseSet<?> other) {
+            return bits.equals(other.bits);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    public DenseSet<K> copy() {
+        return new DenseSet<>(universe, (BitSet) bits.clone());
+    }
+
+    // Empty set over the same universe
+    public DenseSet<K> emptyCopy() {
+        return new DenseSet<>(universe);
+    }
+}
@@ -0,0 +1,6 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+// SSA values and blocks are numbered consecutively per function, so side tables can be arrays indexed by the id
+public interface DenselyNumbered {
+    int id();
+}
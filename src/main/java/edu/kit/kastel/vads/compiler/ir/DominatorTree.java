@@ -0,0 +1,200 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import java.util.*;
+
+// Dominator tree of a function (Cooper, Harvey and Kennedy, A Simple, Fast Dominance Algorithm).
+// Blocks are numbered in reverse postorder, so a dominator always has a smaller number than the blocks it dominates.
+// Blocks that can not be reached from the start block are not part of the tree.
+public final class DominatorTree {
+    private static final int UNDEFINED = -1;
+
+    private final List<IrBlock> reversePostorder;
+    private final DenseIntMap<IrBlock> numbers;
+    private final int[] immediateDominators;
+    private final List<List<IrBlock>> children;
+    // Preorder interval of every block in the dominator tree, a block dominates the blocks nested in its interval
+    private final int[] preorderEntry;
+    private final int[] preorderExit;
+    private final List<Set<IrBlock>> dominanceFrontiers;
+
+    private DominatorTree(List<IrBlock> reversePostorder) {
+        this.reversePostorder = reversePostorder;
+        this.numbers = new DenseIntMap<>(reversePostorder.size(), UNDEFINED);
+        for (int i = 0; i < reversePostorder.size(); i++) {
+            numbers.put(reversePostorder.get(i), i);
+        }
+
+        this.immediateDominators = computeImmediateDominators();
+        this.children = new ArrayList<>();
+        for (int i = 0; i < reversePostorder.size(); i++) {
+            children.add(new ArrayList<>());
+        }
+        for (int i = 1; i < reversePostorder.size(); i++) {
+            children.get(immediateDominators[i]).add(reversePostorder.get(i));
+        }
+
+        this.preorderEntry = new int[reversePostorder.size()];
+        this.preorderExit = new int[reversePostorder.size()];
+        numberPreorder();
+        this.dominanceFrontiers = computeDominanceFrontiers();
+    }
+
+    public static DominatorTree compute(IrFunction function) {
+        return compute(function.startBlock());
+    }
+
+    public static DominatorTree compute(IrBlock startBlock) {
+        return new DominatorTree(BlockOrder.reversePostorder(startBlock));
+    }
+
+    public List<IrBlock> reversePostorder() {
+        return Collections.unmodifiableList(reversePostorder);
+    }
+
+    public boolean isReachable(IrBlock block) {
+        return numbers.containsKey(block);
+    }
+
+    // Position of the block in reverse postorder
+    public int number(IrBlock block) {
+        int number = numbers.get(block);
+        if (number == UNDEFINED) {
+            throw new IllegalArgumentException("Block " + block.name() + " is not reachable from the start block");
+        }
+        return number;
+    }
+
+    // Empty for the start block and unreachable blocks
+    public Optional<IrBlock> immediateDominator(IrBlock block) {
+        int number = numbers.get(block);
+        if (number == UNDEFINED || number == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(reversePostorder.get(immediateDominators[number]));
+    }
+
+    // Children in the dominator tree, in reverse postorder
+    public List<IrBlock> children(IrBlock block) {
+        int number = numbers.get(block);
+        if (number == UNDEFINED) {
+            return List.of();
+        }
+        return Collections.unmodifiableList(children.get(number));
+    }
+
+    public boolean dominates(IrBlock dominator, IrBlock block) {
+        int dominatorNumber = numbers.get(dominator);
+        int blockNumber = numbers.get(block);
+        if (dominatorNumber == UNDEFINED || blockNumber == UNDEFINED) {
+            return false;
+        }
+        return preorderEntry[dominatorNumber] <= preorderEntry[blockNumber]
+                && preorderExit[blockNumber] <= preorderExit[dominatorNumber];
+    }
+
+    public boolean strictlyDominates(IrBlock dominator, IrBlock block) {
+        return dominator != block && dominates(dominator, block);
+    }
+
+    public Set<IrBlock> dominanceFrontier(IrBlock block) {
+        int number = numbers.get(block);
+        if (number == UNDEFINED) {
+            return Set.of();
+        }
+        return Collections.unmodifiableSet(dominanceFrontiers.get(number));
+    }
+
+    private int[] computeImmediateDominators() {
+        int[] dominators = new int[reversePostorder.size()];
+        Arrays.fill(dominators, UNDEFINED);
+        dominators[0] = 0;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < reversePostorder.size(); i++) {
+                int newDominator = UNDEFINED;
+                for (IrBlock predecessor : reversePostorder.get(i).getPredecessorBlocks()) {
+                    int predecessorNumber = numbers.get(predecessor);
+                    if (predecessorNumber == UNDEFINED || dominators[predecessorNumber] == UNDEFINED) {
+                        continue;
+                    }
+                    newDominator = newDominator == UNDEFINED
+                            ? predecessorNumber
+                            : intersect(dominators, predecessorNumber, newDominator);
+                }
+
+                if (dominators[i] != newDominator) {
+                    dominators[i] = newDominator;
+                    changed = true;
+                }
+            }
+        }
+
+        return dominators;
+    }
+
+    // Walks both blocks up the tree until they meet at their nearest common dominator
+    private static int intersect(int[] dominators, int first, int second) {
+        while (first != second) {
+            while (first > second) {
+                first = dominators[first];
+            }
+            while (second > first) {
+                second = dominators[second];
+            }
+        }
+        return first;
+    }
+
+    private void numberPreorder() {
+        int counter = 0;
+        Deque<Integer> stack = new ArrayDeque<>();
+        Deque<Integer> nextChild = new ArrayDeque<>();
+        stack.push(0);
+        nextChild.push(0);
+        preorderEntry[0] = counter++;
+        while (!stack.isEmpty()) {
+            int block = stack.peek();
+            int childIndex = nextChild.pop();
+            List<IrBlock> blockChildren = children.get(block);
+            if (childIndex < blockChildren.size()) {
+                nextChild.push(childIndex + 1);
+                int child = numbers.get(blockChildren.get(childIndex));
+                preorderEntry[child] = counter++;
+                stack.push(child);
+                nextChild.push(0);
+            } else {
+                preorderExit[block] = counter++;
+                stack.pop();
+            }
+        }
+    }
+
+    // A join block is in the frontier of every block on the paths from its predecessors up to its immediate dominator
+    private List<Set<IrBlock>> computeDominanceFrontiers() {
+        List<Set<IrBlock>> frontiers = new ArrayList<>();
+        for (int i = 0; i < reversePostorder.size(); i++) {
+            frontiers.add(new LinkedHashSet<>());
+        }
+
+        for (int i = 0; i < reversePostorder.size(); i++) {
+            IrBlock block = reversePostorder.get(i);
+            if (block.getPredecessorBlocks().size() < 2) {
+                continue;
+            }
+
+            for (IrBlock predecessor : block.getPredecessorBlocks()) {
+                int predecessorNumber = numbers.get(predecessor);
+                if (predecessorNumber == UNDEFINED) {
+                    continue;
+                }
+                for (int runner = predecessorNumber; runner != immediateDominators[i]; runner = immediateDominators[runner]) {
+                    frontiers.get(runner).add(block);
+                }
+            }
+        }
+
+        return frontiers;
+    }
+}
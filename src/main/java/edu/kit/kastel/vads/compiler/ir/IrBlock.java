@@ -6,19 +6,26 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-public final class IrBlock {
+public final class IrBlock implements DenselyNumbered {
+    private final int id;
     private final String name;
     private final List<IrBlock> predecessorBlocks;
     private final List<IrBlock> successorBlocks;
     private final List<IrInstruction> instructions;
 
-    public IrBlock(String name) {
+    public IrBlock(int id, String name) {
+        this.id = id;
         this.name = name;
         predecessorBlocks = new ArrayList<>();
         successorBlocks = new ArrayList<>();
         instructions = new ArrayList<>();
     }
 
+    @Override
+    public int id() {
+        return id;
+    }
+
     public String name() {
         return name;
     }
@@ -50,6 +57,35 @@ public final class IrBlock {
         }
     }
 
+    // Moves the empty edge block between this block and the successor and ends it with a jump to the successor.
+    // The edge block takes the place of this block among the predecessors of the successor.
+    public void splitEdgeTo(IrBlock successor, IrBlock edgeBlock) {
+        successorBlocks.set(successorBlocks.indexOf(successor), edgeBlock);
+        successor.predecessorBlocks.set(successor.predecessorBlocks.indexOf(this), edgeBlock);
+        edgeBlock.predecessorBlocks.add(this);
+        edgeBlock.successorBlocks.add(successor);
+        edgeBlock.addInstruction(new IrJumpInstruction(successor));
+        replaceTerminatorTarget(successor, edgeBlock);
+    }
+
+    // Lets the edges to the old successor lead to the new one instead
+    public void redirectSuccessor(IrBlock oldSuccessor, IrBlock newSuccessor) {
+        successorBlocks.remove(oldSuccessor);
+        oldSuccessor.predecessorBlocks.remove(this);
+        addSuccessorBlock(newSuccessor);
+        replaceTerminatorTarget(oldSuccessor, newSuccessor);
+    }
+
+    private void replaceTerminatorTarget(IrBlock target, IrBlock replacement) {
+        int terminatorIndex = instructions.size() - 1;
+        switch (instructions.get(terminatorIndex)) {
+            case IrBranchInstruction branch ->
+                    instructions.set(terminatorIndex, branch.withTargetReplaced(target, replacement));
+            case IrJumpInstruction _ -> instructions.set(terminatorIndex, new IrJumpInstruction(replacement));
+            default -> throw new IllegalStateException("Block " + name + " does not end with a jump or branch");
+        }
+    }
+
     public void addInstruction(IrInstruction instruction) {
         instructions.add(instruction);
     }
@@ -18,4 +18,12 @@ public final class IrBranchInstruction implements IrInstruction {
     public void replaceConditionValue(SSAValue newConditionValue) {
         this.conditionValue = newConditionValue;
     }
+
+    // Same branch with every target that is the given block replaced
+    public IrBranchInstruction withTargetReplaced(IrBlock target, IrBlock replacement) {
+        return new IrBranchInstruction(
+                conditionValue,
+                trueTarget == target ? replacement : trueTarget,
+                falseTarget == target ? replacement : falseTarget);
+    }
 }
@@ -5,5 +5,24 @@ import java.util.List;
 public record IrFunction(
         IrBlock startBlock,
         List<IrBlock> blocks,
-        boolean isEntryPoint) {
+        boolean isEntryPoint,
+        SSAValueGenerator ssaValues) {
+
+    public SSAValue ssaValue(int id) {
+        return ssaValues.value(id);
+    }
+
+    // Upper bound of the SSA value ids, values created by later passes raise it
+    public int ssaValueCount() {
+        return ssaValues.valueCount();
+    }
+
+    // Upper bound of the ids of the blocks in this function
+    public int blockIdBound() {
+        int bound = 0;
+        for (IrBlock block : blocks) {
+            bound = Math.max(bound, block.id() + 1);
+        }
+        return bound;
+    }
 }
@@ -111,6 +111,17 @@ public class IrFunctionPrinter {
                 builder.append(INDENT).append(irIntConstantInstruction.target().formatName()).append(ASSIGN)
                         .append(irIntConstantInstruction.constValue());
                 break;
+            case IrCallInstruction irCallInstruction:
+                builder.append(INDENT).append(irCallInstruction.target().formatName()).append(ASSIGN)
+                        .append("call ").append(irCallInstruction.functionLabel());
+                for (SSAValue argument : irCallInstruction.arguments()) {
+                    builder.append(SPACE).append(argument.formatName());
+                }
+                break;
+            case IrParameterInstruction irParameterInstruction:
+                builder.append(INDENT).append(irParameterInstruction.target().formatName()).append(ASSIGN)
+                        .append("parameter ").append(irParameterInstruction.index());
+                break;
             case IrLeftShiftInstruction irLeftShiftInstruction:
                 builder.append(INDENT).append(irLeftShiftInstruction.target().formatName()).append(ASSIGN)
                         .append("left_shift ").append(irLeftShiftInstruction.leftSrc().formatName())
@@ -2,9 +2,9 @@ package edu.kit.kastel.vads.compiler.ir;
 
 import edu.kit.kastel.vads.compiler.frontend.semantic.hir.Symbol;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
+import edu.kit.kastel.vads.compiler.ir.dataflow.IrOperands;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class IrPhiGenerator {
 
@@ -13,48 +13,33 @@ public class IrPhiGenerator {
             SSAVariableRenameRecording ssaVariables,
             SSAValueGenerator ssaValueGenerator) {
 
-        HashMap<IrBlock, Set<IrBlock>> dominators = buildDominatorTree(function);
-        HashMap<IrBlock, IrBlock> immDominators = getImmediateDominators(dominators);
-        Map<IrBlock, Set<IrBlock>> dominanceChildren = getDominanceTree(
-                new HashSet<>(function.blocks()),
-                immDominators);
-        Map<IrBlock, Set<IrBlock>> dominanceFrontiers = getDominanceFrontiers(
-                function,
-                new HashSet<>(function.blocks()),
-                dominanceChildren,
-                immDominators);
-
-        insertPlaceholderPhis(function, ssaVariables, dominanceFrontiers, ssaValueGenerator);
-        //new IrFunctionPrinter().print(function);
-        insertPhiOperands(function.startBlock(), ssaVariables);
-        //new IrFunctionPrinter().print(function);
-        //removeInvalidPhis(function);
-        // Insert phis
-        iteratePhis(function, dominanceChildren);
-        //new IrFunctionPrinter().print(function);
-        removeTrivialPhis(function, dominanceChildren);
-        //new IrFunctionPrinter().print(function);
+        DominatorTree dominatorTree = DominatorTree.compute(function);
+
+        DenseMap<IrBlock, List<IrPhi>> placeholderPhis =
+                insertPlaceholderPhis(function, ssaVariables, dominatorTree, ssaValueGenerator);
+        renameVariables(function.startBlock(), dominatorTree, placeholderPhis);
+        removeTrivialPhis(function, dominatorTree);
 
         return function;
     }
 
 
-    private void insertPlaceholderPhis(
+    // The maps and block sets are iterated in insertion order, which follows the reverse postorder of the blocks, so the
+    // phis and their value numbers are the same in every run
+    private DenseMap<IrBlock, List<IrPhi>> insertPlaceholderPhis(
             IrFunction function,
             SSAVariableRenameRecording ssaVariables,
-            Map<IrBlock, Set<IrBlock>> dominanceFrontiers,
+            DominatorTree dominatorTree,
             SSAValueGenerator ssaValueGenerator) {
 
-        Map<Symbol, List<IrBlock>> defSites = new HashMap<>();
-        HashSet<IrBlock> visitedBlock = new HashSet<>();
-        computeDefSites(function.startBlock(), visitedBlock, defSites, ssaVariables);
+        Map<Symbol, List<IrBlock>> defSites = computeDefSites(dominatorTree, ssaVariables);
 
-        Map<Symbol, Set<IrBlock>> phiLocations = new HashMap<>();
+        Map<Symbol, Set<IrBlock>> phiLocations = new LinkedHashMap<>();
         Map<Symbol, Queue<IrBlock>> workLists = new HashMap<>();
         Map<Symbol, Set<IrBlock>> hasAlready = new HashMap<>();
 
         for (Symbol symbol : defSites.keySet()) {
-            phiLocations.put(symbol, new HashSet<>());
+            phiLocations.put(symbol, new LinkedHashSet<>());
             workLists.put(symbol, new ArrayDeque<>());
             hasAlready.put(symbol, new HashSet<>());
 
@@ -67,7 +52,7 @@ public class IrPhiGenerator {
             Queue<IrBlock> symbolWorkList = workLists.get(symbol);
             while (!symbolWorkList.isEmpty()) {
                 IrBlock current = symbolWorkList.poll();
-                for (IrBlock frontier : dominanceFrontiers.getOrDefault(current, Set.of())) {
+                for (IrBlock frontier : dominatorTree.dominanceFrontier(current)) {
 
                     if (!hasAlready.get(symbol).contains(frontier)) {
                         phiLocations.get(symbol).add(frontier);
@@ -77,8 +62,7 @@ public class IrPhiGenerator {
                 }
             }
         }
-        int x = 0;
-
+        DenseMap<IrBlock, List<IrPhi>> placeholderPhis = new DenseMap<>();
         for (Symbol symbol : phiLocations.keySet()) {
             Set<IrBlock> blocksToInsertPhis = phiLocations.get(symbol);
             for (IrBlock block : blocksToInsertPhis) {
@@ -86,33 +70,28 @@ public class IrPhiGenerator {
                 IrPhi phi = new IrPhi(ssaValueGenerator.generateNewSSAValue(IrType.from(symbol.type()), Optional.of(symbol)), new ArrayList<>());
                 ssaVariables.introduceNewSSAValue(phi.target(), block);
                 block.insertInstruction(0, phi);
+                placeholderPhis.computeIfAbsent(block, _ -> new ArrayList<>()).add(phi);
             }
         }
+        return placeholderPhis;
     }
 
-    private void computeDefSites(
-            IrBlock block,
-            HashSet<IrBlock> visited,
-            Map<Symbol, List<IrBlock>> defSites,
-            SSAVariableRenameRecording ssaVariables) {
-        if (!visited.add(block)) {
-            return;
-        }
-
-        Map<SSAValue, Symbol> invertedMappings = ssaVariables.getInvertedSSAValueMappings();
-
-        for (IrInstruction instruction : block.getInstructions()) {
-            Optional<SSAValue> ssaValueDefinedByInstruction = definesOperands(instruction);
-            if (ssaValueDefinedByInstruction.isPresent() && invertedMappings.containsKey(ssaValueDefinedByInstruction.get())) {
-                defSites.computeIfAbsent(
-                        invertedMappings.get(ssaValueDefinedByInstruction.get()),
-                        _ -> new ArrayList<>()).add(block);
+    // Only reachable blocks are visited, phis are never placed in the others
+    private Map<Symbol, List<IrBlock>> computeDefSites(DominatorTree dominatorTree, SSAVariableRenameRecording ssaVariables) {
+        Map<Symbol, List<IrBlock>> defSites = new LinkedHashMap<>();
+        DenseMap<SSAValue, Symbol> invertedMappings = ssaVariables.getInvertedSSAValueMappings();
+
+        for (IrBlock block : dominatorTree.reversePostorder()) {
+            for (IrInstruction instruction : block.getInstructions()) {
+                Optional<SSAValue> ssaValueDefinedByInstruction = definesOperands(instruction);
+                if (ssaValueDefinedByInstruction.isPresent() && invertedMappings.containsKey(ssaValueDefinedByInstruction.get())) {
+                    defSites.computeIfAbsent(
+                            invertedMappings.get(ssaValueDefinedByInstruction.get()),
+                            _ -> new ArrayList<>()).add(block);
+                }
             }
         }
-
-        for (IrBlock successor : block.getSuccessorBlocks()) {
-            computeDefSites(successor, visited, defSites, ssaVariables);
-        }
+        return defSites;
     }
 
     private Optional<SSAValue> definesOperands(IrInstruction instruction) {
@@ -124,6 +103,8 @@ public class IrPhiGenerator {
             case IrIntConstantInstruction irIntConstantInstruction ->
                     Optional.of(irIntConstantInstruction.target());
             case IrMoveInstruction irMoveInstruction -> Optional.of(irMoveInstruction.target());
+            case IrCallInstruction irCallInstruction -> Optional.of(irCallInstruction.target());
+            case IrParameterInstruction irParameterInstruction -> Optional.of(irParameterInstruction.target());
             case IrPhi irPhi -> Optional.empty();
             case IrUnaryOperationInstruction irUnaryOperationInstruction ->
                      Optional.of(irUnaryOperationInstruction.target());
@@ -132,205 +113,103 @@ public class IrPhiGenerator {
     }
 
 
-    private void insertPhiOperands(IrBlock block, SSAVariableRenameRecording ssaVariables) {
-        HashSet<IrBlock> visitedBlocks = new HashSet<>();
-        insertPhiOperands(block, visitedBlocks, ssaVariables);
-    }
-
-    private void insertPhiOperands(IrBlock block, HashSet<IrBlock> visitedBlocks, SSAVariableRenameRecording ssaVariables) {
-        if (!visitedBlocks.add(block)) {
-            return;
-        }
-
-        for (IrInstruction instruction : block.getInstructions()) {
-            if (instruction instanceof IrPhi phi) {
-                Symbol phiTargetSymbol = ssaVariables.getInvertedSSAValueMappings().get(phi.target());
-                for (IrBlock predecessor : block.getPredecessorBlocks()) {
-                    HashSet<IrBlock> visitedPred = new HashSet<>();
-                    Optional<SSAValue> phiSource = getLatestDefOf(predecessor, visitedPred, phiTargetSymbol, ssaVariables);
-                    if (phiSource.isPresent()) {
-                        phi.addPhiItem(new IrPhi.IrPhiItem(phiSource.get(), predecessor));
-                    }
+    // Renames the variable operands in dominator tree preorder. Every value with a symbol is a version of that
+    // variable, so each use of one is replaced with the version reaching it, the top of the symbol's stack. Uses
+    // recorded during construction may be stale, the search for the latest version stops at the first predecessor
+    // that defines one. The tree is walked with an explicit stack, it is as deep as the longest chain of nested and
+    // sequential control flow.
+    private void renameVariables(
+            IrBlock startBlock,
+            DominatorTree dominatorTree,
+            DenseMap<IrBlock, List<IrPhi>> placeholderPhis) {
+        Map<Symbol, Deque<SSAValue>> reachingDefinitions = new HashMap<>();
+        Deque<IrBlock> stack = new ArrayDeque<>();
+        Deque<Integer> nextChild = new ArrayDeque<>();
+        // The symbols every block on the stack defined, their versions are popped when the block is left
+        Deque<List<Symbol>> definedSymbols = new ArrayDeque<>();
+        stack.push(startBlock);
+        nextChild.push(0);
+        definedSymbols.push(renameBlock(startBlock, placeholderPhis, reachingDefinitions));
+        while (!stack.isEmpty()) {
+            IrBlock block = stack.peek();
+            int childIndex = nextChild.pop();
+            List<IrBlock> children = dominatorTree.children(block);
+            if (childIndex < children.size()) {
+                nextChild.push(childIndex + 1);
+                IrBlock child = children.get(childIndex);
+                stack.push(child);
+                nextChild.push(0);
+                definedSymbols.push(renameBlock(child, placeholderPhis, reachingDefinitions));
+            } else {
+                for (Symbol symbol : definedSymbols.pop()) {
+                    reachingDefinitions.get(symbol).pop();
                 }
+                stack.pop();
             }
         }
-
-        for (IrBlock successor : block.getSuccessorBlocks()) {
-            insertPhiOperands(successor, visitedBlocks, ssaVariables);
-        }
     }
 
-    // TODO: Rewrite
-    private Optional<SSAValue> getLatestDefOf(IrBlock block, Set<IrBlock> visitedBlocks, Symbol symbol, SSAVariableRenameRecording ssaVariables) {
-        if (!visitedBlocks.add(block)){
-            return Optional.empty();
-        }
-
-        List<SSAValue> ssaValues = new ArrayList<>();
+    // Renames the uses in the block and fills in the phi operands of its successors, returns the symbols it defines
+    private List<Symbol> renameBlock(
+            IrBlock block,
+            DenseMap<IrBlock, List<IrPhi>> placeholderPhis,
+            Map<Symbol, Deque<SSAValue>> reachingDefinitions) {
+        List<Symbol> definedSymbols = new ArrayList<>();
 
         for (IrInstruction instruction : block.getInstructions()) {
-            if (instruction instanceof IrValueProducingInstruction valueProducingInstruction) {
-                if (ssaVariables.getInvertedSSAValueMappings().containsKey(valueProducingInstruction.target())) {
-                    Symbol instructionDefinedSymbol
-                            = ssaVariables.getInvertedSSAValueMappings().get(valueProducingInstruction.target());
-
-                    if (symbol == instructionDefinedSymbol) {
-                        ssaValues.add(valueProducingInstruction.target());
+            if (!(instruction instanceof IrPhi)) {
+                List<SSAValue> uses = new ArrayList<>();
+                IrOperands.forEachUse(instruction, uses::add);
+                for (SSAValue use : uses) {
+                    Optional<SSAValue> reachingDefinition = reachingDefinitionOf(use, reachingDefinitions);
+                    if (reachingDefinition.isPresent() && reachingDefinition.get() != use) {
+                        replacePhiOperandInInstruction(instruction, reachingDefinition.get(), use, Optional.empty());
                     }
                 }
             }
-        }
-
-        if (!ssaValues.isEmpty()) {
-            return Optional.of(ssaValues.getLast());
-        }
-
-        HashSet<SSAValue> lastPredecessorDefs = new HashSet<>();
-        for (IrBlock predecessor : block.getPredecessorBlocks()) {
-            Optional<SSAValue> lastPredecessorDef = getLatestDefOf(predecessor, visitedBlocks, symbol, ssaVariables);
-            lastPredecessorDef.ifPresent(lastPredecessorDefs::add);
-        }
-
-        if (lastPredecessorDefs.size() != 1) {
-            //throw new IllegalArgumentException("Unexpected.");
-        }
-
-        return lastPredecessorDefs.stream().findFirst();
-    }
-
-
-    private void removeInvalidPhis(IrFunction function) {
-        HashSet<IrBlock> visitedBlocks = new HashSet<>();
-        removeInvalidPhis(function.startBlock(), visitedBlocks);
-    }
-
-    private void removeInvalidPhis(IrBlock block, HashSet<IrBlock> visitedBlocks) {
-        if (!visitedBlocks.add(block)) {
-            return;
-        }
-
-        Set<IrPhi> phisToRemove = new HashSet<>();
-        for (IrInstruction instruction : block.getInstructions()) {
-            if (instruction instanceof IrPhi phi) {
-                if (phi.sources().stream().map(IrPhi.IrPhiItem::value).distinct().count() < 2) {
-                    phisToRemove.add(phi);
-                }
-            }
-        }
-        phisToRemove.forEach(block::removeInstruction);
-
-        for (IrBlock successor : block.getSuccessorBlocks()) {
-            removeInvalidPhis(successor, visitedBlocks);
-        }
-    }
-
-
-    private void iteratePhis(IrFunction function, Map<IrBlock, Set<IrBlock>> dominanceChildren) {
-
-        Set<IrBlock> startBlockChildren = dominanceChildren.getOrDefault(function.startBlock(), Set.of());
-        for (IrBlock child : startBlockChildren) {
-            iteratePhis(child, dominanceChildren);
-        }
-    }
-
-    private void iteratePhis(IrBlock currentBlock, Map<IrBlock, Set<IrBlock>> dominanceChildren) {
 
-        List<IrPhi> phis = new ArrayList<>();
-        for (IrInstruction instruction : currentBlock.getInstructions()) {
-            if (instruction instanceof IrPhi phi) {
-                phis.add(phi);
+            Optional<SSAValue> definition = IrOperands.definition(instruction);
+            if (definition.isPresent() && definition.get().symbol().isPresent()) {
+                Symbol symbol = definition.get().symbol().get();
+                reachingDefinitions.computeIfAbsent(symbol, _ -> new ArrayDeque<>()).push(definition.get());
+                definedSymbols.add(symbol);
             }
         }
 
-        for (IrPhi phi : phis) {
-            replacePhiOperands(currentBlock, phi);
-        }
-
-        Set<IrBlock> blockChildren = dominanceChildren.getOrDefault(currentBlock, Set.of());
-        for (IrBlock child : blockChildren) {
-            iteratePhis(child, dominanceChildren);
-        }
-    }
-
-    private void replacePhiOperands(IrBlock startBlock, IrPhi phi) {
-        HashSet<SSAValue> operandsToReplace = phi.sources()
-                .stream()
-                .map(IrPhi.IrPhiItem::value)
-                .collect(Collectors.toCollection(HashSet::new));
-
-        boolean phiFound = false;
-        for (IrInstruction instruction : startBlock.getInstructions()) {
-            if (!phiFound) {
-                 if (instruction == phi) {
-                     phiFound = true;
-                 }
-                continue;
-            }
-
-
-            for (SSAValue operand : operandsToReplace) {
-                HashSet<SSAValue> updateOperandsToReplace = new HashSet<>(operandsToReplace);
-
-                if (doesInstructionDefineSSAValue(instruction, operand)) {
-                    updateOperandsToReplace.remove(operand);
-                } else {
-                    replacePhiOperandInInstruction(instruction, phi.target(), operand, Optional.empty());
+        for (IrBlock successor : new LinkedHashSet<>(block.getSuccessorBlocks())) {
+            for (IrInstruction instruction : successor.getInstructions()) {
+                if (!(instruction instanceof IrPhi phi)) {
+                    continue;
                 }
 
-
-                operandsToReplace = updateOperandsToReplace;
-            }
-        }
-
-        HashSet<BlockVisitingPair> visitedBlocks = new HashSet<>();
-        visitedBlocks.add(new BlockVisitingPair(startBlock, startBlock));
-        for (IrBlock successor : startBlock.getSuccessorBlocks()) {
-            replacePhiOperands(successor, startBlock, visitedBlocks, phi.target(), operandsToReplace);
-        }
-    }
-
-    private void replacePhiOperands(IrBlock block, IrBlock comingFrom, HashSet<BlockVisitingPair> visitedBlocks, SSAValue newOperand, HashSet<SSAValue> operandsToReplace) {
-        if (!visitedBlocks.add(new BlockVisitingPair(block, comingFrom))) {
-            return;
-        }
-
-        HashSet<SSAValue> remainingOperandsToReplace = new HashSet<>(operandsToReplace);
-
-        for (IrInstruction instruction : block.getInstructions()) {
-
-            // This a guard that prevents phis from overriding their own operands
-            if (doesInstructionDefineSSAValue(instruction, newOperand)) {
-                remainingOperandsToReplace.clear();
-                return;
-            }
-
-            for (SSAValue operand : remainingOperandsToReplace) {
-                HashSet<SSAValue> updateOperandsToReplace = new HashSet<>(remainingOperandsToReplace);
-
-                if (doesInstructionDefineSSAValue(instruction, operand)) {
-                    updateOperandsToReplace.remove(operand);
+                if (placeholderPhis.getOrDefault(successor, List.of()).contains(phi)) {
+                    Deque<SSAValue> definitions = reachingDefinitions.get(phi.target().symbol().orElseThrow());
+                    // No operand if the variable is not declared on this path, the phi is dead then
+                    if (definitions != null && !definitions.isEmpty()) {
+                        phi.addPhiItem(new IrPhi.IrPhiItem(definitions.peek(), block));
+                    }
                 } else {
-                    boolean replaced = replacePhiOperandInInstruction(instruction, newOperand, operand, Optional.of(comingFrom));
-
-                    if (instruction instanceof IrPhi phi) {
-                        if (replaced || phi.containsOperand(operand)) {
-                            updateOperandsToReplace.remove(operand);
+                    // Phis of conditional and logical expressions read variables at the end of their predecessor
+                    for (IrPhi.IrPhiItem phiItem : phi.sources()) {
+                        if (phiItem.block() == block) {
+                            reachingDefinitionOf(phiItem.value(), reachingDefinitions).ifPresent(phiItem::changeValue);
                         }
                     }
                 }
-
-
-                remainingOperandsToReplace = updateOperandsToReplace;
             }
         }
+        return definedSymbols;
+    }
 
-        if (remainingOperandsToReplace.isEmpty()) {
-            return;
+    private Optional<SSAValue> reachingDefinitionOf(SSAValue value, Map<Symbol, Deque<SSAValue>> reachingDefinitions) {
+        if (value.symbol().isEmpty()) {
+            return Optional.empty();
         }
-
-        for (IrBlock successor : block.getSuccessorBlocks()) {
-            replacePhiOperands(successor, block, visitedBlocks, newOperand, remainingOperandsToReplace);
+        Deque<SSAValue> definitions = reachingDefinitions.get(value.symbol().get());
+        if (definitions == null || definitions.isEmpty()) {
+            return Optional.empty();
         }
+        return Optional.ofNullable(definitions.peek());
     }
 
     private boolean replacePhiOperandInInstruction(IrInstruction instruction, SSAValue newOperand, SSAValue operandToReplace, Optional<IrBlock> comingFromFilter) {
@@ -352,7 +231,15 @@ public class IrPhiGenerator {
                     replaced = true;
                 }
                 break;
-            case IrJumpInstruction _, IrIntConstantInstruction _, IrBoolConstantInstruction _:
+            case IrJumpInstruction _, IrIntConstantInstruction _, IrBoolConstantInstruction _, IrParameterInstruction _:
+                break;
+            case IrCallInstruction irCallInstruction:
+                for (int i = 0; i < irCallInstruction.arguments().size(); i++) {
+                    if (operandToReplace == irCallInstruction.arguments().get(i)) {
+                        irCallInstruction.replaceArgument(i, newOperand);
+                        replaced = true;
+                    }
+                }
                 break;
             case IrReturnInstruction irReturnInstruction:
                 if (operandToReplace == irReturnInstruction.src()) {
@@ -389,272 +276,61 @@ public class IrPhiGenerator {
         return replaced;
     }
 
-    private boolean doesInstructionDefineSSAValue(IrInstruction instruction, SSAValue ssaValue) {
-        if (instruction instanceof IrValueProducingInstruction valueProducingInstruction) {
-            return valueProducingInstruction.target() == ssaValue;
-        }
-        return false;
-    }
-
-
-    record BlockVisitingPair(IrBlock block, IrBlock comingFrom) { }
-
-    private void removeTrivialPhis(IrFunction function, Map<IrBlock, Set<IrBlock>> dominanceChildren) {
-        Set<IrBlock> startBlockChildren = dominanceChildren.getOrDefault(function.startBlock(), Set.of());
-        for (IrBlock child : startBlockChildren) {
-            removeTrivialPhis(child, dominanceChildren);
-        }
-    }
-
-    private void removeTrivialPhis(IrBlock currentBlock, Map<IrBlock, Set<IrBlock>> dominanceChildren) {
-        List<IrPhi> phis = new ArrayList<>();
-        for (IrInstruction instruction : currentBlock.getInstructions()) {
-            if (instruction instanceof IrPhi phi) {
-                phis.add(phi);
-            }
-        }
-
-        for (IrPhi phi : phis) {
-            if (phi.isTrivialPhi()) {
-                currentBlock.removeInstruction(phi);
-                Optional<SSAValue> singlePhiOperand = phi.getTrivialOperandOrThrow();
-                if (singlePhiOperand.isPresent()) {
-                    HashSet<IrBlock> visitedBlocks = new HashSet<>();
-                    replaceAllOperandOccurrences(currentBlock, visitedBlocks, singlePhiOperand.get(), phi.target());
+    // A trivial phi is replaced by its single operand. Blocks are visited in reverse postorder, so the operands of a
+    // phi coming from forward edges are resolved through the earlier replacements before it is checked. The uses are rewritten
+    // in a single pass at the end.
+    private void removeTrivialPhis(IrFunction function, DominatorTree dominatorTree) {
+        DenseMap<SSAValue, SSAValue> replacements = new DenseMap<>();
+        for (IrBlock block : dominatorTree.reversePostorder()) {
+            List<IrPhi> phis = new ArrayList<>();
+            for (IrInstruction instruction : block.getInstructions()) {
+                if (instruction instanceof IrPhi phi) {
+                    phis.add(phi);
                 }
             }
-        }
-
-        Set<IrBlock> blockChildren = dominanceChildren.getOrDefault(currentBlock, Set.of());
-        for (IrBlock child : blockChildren) {
-            iteratePhis(child, dominanceChildren);
-        }
-    }
-
-    private void replaceAllOperandOccurrences(IrBlock currentBlock, Set<IrBlock> visitedBlocks, SSAValue newOperand, SSAValue operandToReplace) {
-        if (!visitedBlocks.add(currentBlock)) {
-            return;
-        }
-
-        for (IrInstruction instruction : currentBlock.getInstructions()) {
-            replacePhiOperandInInstruction(instruction, newOperand, operandToReplace, Optional.empty());
-        }
-
-        for (IrBlock successor : currentBlock.getSuccessorBlocks()) {
-            replaceAllOperandOccurrences(successor, visitedBlocks, newOperand, operandToReplace);
-        }
-    }
-
 
-    private HashMap<IrBlock, Set<IrBlock>> buildDominatorTree(IrFunction function) {
-        HashMap<IrBlock, Set<IrBlock>> dominators = initDominatorTree(function);
-
-        Set<IrBlock> relevantBlocks = function.blocks()
-                .stream()
-                .filter(b -> b != function.startBlock())
-                .collect(Collectors.toSet());
-
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-
-            for (IrBlock block : relevantBlocks) {
-                if (block.getPredecessorBlocks().isEmpty()) continue;
-
-                Set<Set<IrBlock>> dominatorSet = new HashSet<>();
-
-                for (IrBlock predecessor : block.getPredecessorBlocks()) {
-                    dominatorSet.add(dominators.get(predecessor));
+            for (IrPhi phi : phis) {
+                for (IrPhi.IrPhiItem phiItem : phi.sources()) {
+                    phiItem.changeValue(resolve(phiItem.value(), replacements));
                 }
-
-                Set<IrBlock> newDominators = intersect(dominatorSet);
-                newDominators.add(block);
-
-                if (!setEquals(newDominators, dominators.get(block))) {
-                    dominators.put(block, newDominators);
-                    changed = true;
+                if (phi.isTrivialPhi()) {
+                    block.removeInstruction(phi);
+                    phi.getTrivialOperandOrThrow()
+                            .filter(operand -> operand != phi.target())
+                            .ifPresent(operand -> replacements.put(phi.target(), operand));
                 }
             }
         }
 
-        return dominators;
-    }
-
-    private HashMap<IrBlock, Set<IrBlock>> initDominatorTree(IrFunction function) {
-        HashMap<IrBlock, Set<IrBlock>> dominators = new HashMap<>(); // Contains for each block b all other blocks that dominate b
-
-        for (IrBlock block : function.blocks()) {
-            if (block == function.startBlock()) {
-                dominators.put(block, Set.of(block));
-            } else {
-                dominators.put(block, new HashSet<>(function.blocks()));
-            }
-        }
-
-        return dominators;
-    }
-
-    private Set<IrBlock> intersect(Set<Set<IrBlock>> sets) {
-        if (sets.isEmpty()) {
-            return Set.of();
-        } else if (sets.size() == 1) {
-            return new HashSet<>(sets.stream().findFirst().get());
-        } else {
-            Set<IrBlock> currentSet = new HashSet<>(sets.stream().findFirst().get());
-            for (Iterator<Set<IrBlock>> it = sets.stream().skip(1).iterator(); it.hasNext(); ) {
-                Set<IrBlock> next = it.next();
-                currentSet = intersect(currentSet, next);
-            }
-            return currentSet;
+        if (replacements.isEmpty()) {
+            return;
         }
-    }
-
-    private Set<IrBlock> intersect(Set<IrBlock> set1, Set<IrBlock> set2) {
-        return set1.stream().filter(set2::contains).collect(Collectors.toSet());
-    }
-
-    private static boolean setEquals(Set<IrBlock> a, Set<IrBlock> b) {
-        return a.size() == b.size() && a.containsAll(b) && b.containsAll(a);
-    }
-
-    private HashMap<IrBlock, IrBlock> getImmediateDominators(HashMap<IrBlock, Set<IrBlock>> dominators) {
-        HashMap<IrBlock, IrBlock> immDominators = new HashMap<>();
-
-        for (IrBlock block : dominators.keySet()) {
-            HashSet<IrBlock> immDominatorCandidates = new HashSet<>(dominators.get(block));
-            // Block can not be its own immediate dominator
-            immDominatorCandidates.remove(block);
-
-            if (immDominatorCandidates.isEmpty()) {
-                continue;
-            }
-
-            for (IrBlock candidate : immDominatorCandidates) {
-
-                // Check candidate dominates all other candidates
-                boolean isImmediateDominator = true;
-                for (IrBlock other : immDominatorCandidates) {
-                    if (other == candidate) {
-                        continue;
-                    }
-
-                    if (dominators.get(other).contains(candidate)) {
-                        isImmediateDominator = false;
-                        break;
+        for (IrBlock block : function.blocks()) {
+            for (IrInstruction instruction : block.getInstructions()) {
+                if (instruction instanceof IrPhi phi) {
+                    for (IrPhi.IrPhiItem phiItem : phi.sources()) {
+                        phiItem.changeValue(resolve(phiItem.value(), replacements));
                     }
+                    continue;
                 }
-
-                if (isImmediateDominator) {
-                    immDominators.put(block, candidate);
-                    break;
-                }
-            }
-        }
-
-        return immDominators;
-    }
-
-    private Map<IrBlock, Set<IrBlock>> getDominanceTree(Set<IrBlock> allBlocks, HashMap<IrBlock, IrBlock> immDominators) {
-        Map<IrBlock, Set<IrBlock>> domTreeChildren = new HashMap<>();
-        for (IrBlock block : allBlocks) { // Assuming you have a list of all blocks
-            if (immDominators.containsKey(block)) {
-                IrBlock idom = immDominators.get(block); // immDominators is your IDom map
-                domTreeChildren.computeIfAbsent(idom, __ -> new HashSet<>()).add(block);
-            }
-        }
-        return domTreeChildren;
-    }
-
-    private Map<IrBlock, Set<IrBlock>> getDominanceFrontiers(
-            IrFunction function,
-            Set<IrBlock> allBlocks,
-            Map<IrBlock, Set<IrBlock>> dominatorTree,
-            Map<IrBlock, IrBlock> immDominators) {
-        Map<IrBlock, Set<IrBlock>> dominanceFrontiers = new HashMap<>();
-        for (IrBlock block : allBlocks) {
-            dominanceFrontiers.put(block, new HashSet<>());
-        }
-
-        // Step 1: Determine the processing order (post-order traversal of the dominator tree).
-        // This ensures that when we process a node 'n', the DF of its dominator tree children
-        // have already been computed.
-        List<IrBlock> orderedBlocks = getPostOrderDominatorTreeTraversal(allBlocks, dominatorTree, immDominators);
-
-        // Step 2: Iterate through blocks in the computed order and apply the two rules.
-        for (IrBlock n : orderedBlocks) {
-
-            // Rule 1: Add nodes to DF(n) based on CFG edges.
-            // These are successors 'y' of 'n' where 'n's dominance "breaks out".
-            for (IrBlock y : n.getSuccessorBlocks()) {
-                if (!immDominators.containsKey(y) || !immDominators.get(y).equals(n)) { // If 'n' is NOT the immediate dominator of 'y'
-                    dominanceFrontiers.get(n).add(y);
-                }
-            }
-
-            // Rule 2: Propagate dominance frontiers from children in the dominator tree.
-            // For each child 'c' of 'n' in the dominator tree, if 'w' is in DF(c)
-            // and 'n' does not strictly dominate 'w', then 'w' is also in DF(n).
-            for (IrBlock c : dominatorTree.getOrDefault(n, Collections.emptySet())) {
-                for (IrBlock w : dominanceFrontiers.get(c)) {
-                    if (!strictlyDominates(n, w, immDominators)) {
-                        dominanceFrontiers.get(n).add(w);
+                List<SSAValue> uses = new ArrayList<>();
+                IrOperands.forEachUse(instruction, uses::add);
+                for (SSAValue use : uses) {
+                    SSAValue replacement = resolve(use, replacements);
+                    if (replacement != use) {
+                        replacePhiOperandInInstruction(instruction, replacement, use, Optional.empty());
                     }
                 }
             }
         }
-        return dominanceFrontiers;
     }
 
-    private boolean strictlyDominates(IrBlock d, IrBlock n, Map<IrBlock, IrBlock> immDominators) {
-        if (d.equals(n)) { // A node does not strictly dominate itself
-            return false;
-        }
-        IrBlock current = n;
-        // Traverse up the immediate dominator chain from 'n'
-        while (current != null && !current.equals(d)) {
-            current = immDominators.get(current);
-        }
-        // If 'current' became 'd', then 'd' was found on the path from entry to 'n' (excluding 'n')
-        return current != null && current.equals(d);
-    }
-
-    private List<IrBlock> getPostOrderDominatorTreeTraversal(Set<IrBlock> allBlocks, Map<IrBlock, Set<IrBlock>> domTreeChildren, Map<IrBlock, IrBlock> immDominators) {
-        List<IrBlock> order = new ArrayList<>();
-        Set<IrBlock> visited = new HashSet<>();
-
-        // Find the entry block (root of the dominator tree)
-        IrBlock entryBlock = null;
-        for (Map.Entry<IrBlock, IrBlock> entry : immDominators.entrySet()) {
-            if (entry.getValue() == null) { // Block with no immediate dominator is the entry
-                entryBlock = entry.getKey();
-                break;
-            }
-        }
-
-        // Handle cases where an explicit entry might not be directly linked to null,
-        // or for disconnected graphs (though a CFG usually has one entry).
-        // Iterate all blocks to ensure all components of the dominator tree are visited.
-        for (IrBlock block : allBlocks) {
-            if (!visited.contains(block)) {
-                postOrderDFS(block, domTreeChildren, visited, order);
-            }
-        }
-
-        return order;
-    }
-
-    private void postOrderDFS(IrBlock node, Map<IrBlock, Set<IrBlock>> domTreeChildren,
-                              Set<IrBlock> visited, List<IrBlock> order) {
-        if (visited.contains(node)) {
-            return;
-        }
-        visited.add(node);
-
-        // Recursively visit all children in the dominator tree
-        for (IrBlock child : domTreeChildren.getOrDefault(node, Collections.emptySet())) {
-            postOrderDFS(child, domTreeChildren, visited, order);
+    // Follows the chain of replacements, a phi may be replaced by a phi that turned out trivial later
+    private SSAValue resolve(SSAValue value, DenseMap<SSAValue, SSAValue> replacements) {
+        SSAValue replacement = value;
+        while (replacements.containsKey(replacement)) {
+            replacement = replacements.get(replacement);
         }
-        // Add the node to the order list AFTER visiting all its children (post-order)
-        order.add(node);
+        return replacement;
     }
 }
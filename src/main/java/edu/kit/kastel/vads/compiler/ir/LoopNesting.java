@@ -0,0 +1,73 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+
+// Natural loops of a function. An edge to a block that dominates its source is a back edge, the loop of its target
+// (the header) consists of the header and every block reaching the back edge without passing the header.
+// Loops sharing a header are merged, the depth of a block is the number of loops it belongs to.
+public final class LoopNesting {
+    private final int[] depths;
+    // Blocks of the loop of every header, keyed by the header
+    private final DenseMap<IrBlock, BitSet> loopBodies;
+
+    private LoopNesting(int[] depths, DenseMap<IrBlock, BitSet> loopBodies) {
+        this.depths = depths;
+        this.loopBodies = loopBodies;
+    }
+
+    public static LoopNesting compute(IrFunction function) {
+        DominatorTree dominatorTree = DominatorTree.compute(function);
+        int[] depths = new int[function.blockIdBound()];
+        DenseMap<IrBlock, BitSet> loopBodies = new DenseMap<>(function.blockIdBound());
+
+        Deque<IrBlock> worklist = new ArrayDeque<>();
+        for (IrBlock header : dominatorTree.reversePostorder()) {
+            BitSet body = new BitSet();
+            body.set(header.id());
+            for (IrBlock predecessor : header.getPredecessorBlocks()) {
+                if (dominatorTree.dominates(header, predecessor) && !body.get(predecessor.id())) {
+                    body.set(predecessor.id());
+                    worklist.push(predecessor);
+                }
+            }
+
+            boolean isHeader = !worklist.isEmpty() || header.getPredecessorBlocks().contains(header);
+            if (!isHeader) {
+                continue;
+            }
+
+            while (!worklist.isEmpty()) {
+                for (IrBlock predecessor : worklist.pop().getPredecessorBlocks()) {
+                    if (dominatorTree.isReachable(predecessor) && !body.get(predecessor.id())) {
+                        body.set(predecessor.id());
+                        worklist.push(predecessor);
+                    }
+                }
+            }
+
+            for (int block = body.nextSetBit(0); block >= 0; block = body.nextSetBit(block + 1)) {
+                depths[block]++;
+            }
+            loopBodies.put(header, body);
+        }
+
+        return new LoopNesting(depths, loopBodies);
+    }
+
+    public boolean isLoopHeader(IrBlock block) {
+        return loopBodies.containsKey(block);
+    }
+
+    // Whether the block belongs to the loop of the header, which includes nested loops
+    public boolean isInLoop(IrBlock block, IrBlock header) {
+        BitSet body = loopBodies.get(header);
+        return body != null && body.get(block.id());
+    }
+
+    // Zero for blocks outside of any loop
+    public int depth(IrBlock block) {
+        return block.id() < depths.length ? depths[block.id()] : 0;
+    }
+}
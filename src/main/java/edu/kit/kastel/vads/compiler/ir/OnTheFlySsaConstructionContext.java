@@ -0,0 +1,203 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import edu.kit.kastel.vads.compiler.frontend.semantic.hir.Symbol;
+import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
+
+import java.util.*;
+
+// Builds SSA while the IR is emitted (Braun et al., Simple and Efficient Construction of Static Single Assignment Form).
+// Every block keeps the current definition of each variable, a read without a local definition looks the variable up
+// in the predecessors and places a phi where control flow merges. Blocks whose predecessors are not all known yet
+// get incomplete phis, which receive their operands once the block is sealed.
+public class OnTheFlySsaConstructionContext extends SsaConstructionContext {
+    private final DenseMap<IrBlock, Map<Symbol, SSAValue>> currentDefinitions = new DenseMap<>();
+    private final DenseMap<IrBlock, Map<Symbol, IrPhi>> incompletePhis = new DenseMap<>();
+    // Indexed by block id
+    private final BitSet sealedBlocks = new BitSet();
+    private final DenseMap<SSAValue, PlacedPhi> placedPhis = new DenseMap<>();
+    // Removed trivial phis and the value that replaces them, uses are rewritten once the function is complete
+    private final DenseMap<SSAValue, SSAValue> replacements = new DenseMap<>();
+
+    public OnTheFlySsaConstructionContext(String functionName) {
+        super(functionName);
+        sealBlock(startBlock());
+    }
+
+    @Override
+    public SSAValue generateNewSSAValue(Symbol symbol, IrBlock definingBlock) {
+        SSAValue newValue = ssaValueGenerator().generateNewSSAValue(IrType.from(symbol.type()), Optional.of(symbol));
+        writeVariable(symbol, definingBlock, newValue);
+        return newValue;
+    }
+
+    @Override
+    public SSAValue getLatestSSAValue(Symbol symbol, IrBlock block) {
+        return readVariable(symbol, block)
+                .orElseThrow(() -> new IllegalStateException("No SSAValue found for symbol " + symbol));
+    }
+
+    @Override
+    public void sealBlock(IrBlock block) {
+        if (sealedBlocks.get(block.id())) {
+            return;
+        }
+        sealedBlocks.set(block.id());
+
+        Map<Symbol, IrPhi> phis = incompletePhis.get(block);
+        if (phis != null) {
+            incompletePhis.remove(block);
+            phis.forEach(this::addPhiOperands);
+        }
+    }
+
+    // Seals the blocks that are still open and replaces all uses of removed phis
+    public void completeFunction(IrFunction function) {
+        function.blocks().forEach(this::sealBlock);
+        if (replacements.isEmpty()) {
+            return;
+        }
+
+        for (IrBlock block : function.blocks()) {
+            for (IrInstruction instruction : block.getInstructions()) {
+                replaceRemovedPhiOperands(instruction);
+            }
+        }
+    }
+
+    private void writeVariable(Symbol symbol, IrBlock block, SSAValue value) {
+        currentDefinitions.computeIfAbsent(block, _ -> new HashMap<>()).put(symbol, value);
+    }
+
+    private Optional<SSAValue> readVariable(Symbol symbol, IrBlock block) {
+        SSAValue definition = currentDefinitions.getOrDefault(block, Map.of()).get(symbol);
+        if (definition != null) {
+            return Optional.of(resolve(definition));
+        }
+
+        return readVariableRecursive(symbol, block);
+    }
+
+    private Optional<SSAValue> readVariableRecursive(Symbol symbol, IrBlock block) {
+        List<IrBlock> predecessors = block.getPredecessorBlocks();
+        Optional<SSAValue> value;
+        if (!sealedBlocks.get(block.id())) {
+            IrPhi phi = createPhi(symbol, block);
+            incompletePhis.computeIfAbsent(block, _ -> new LinkedHashMap<>()).put(symbol, phi);
+            value = Optional.of(phi.target());
+        } else if (predecessors.isEmpty()) {
+            // Start block or a block that is never jumped to
+            value = Optional.empty();
+        } else if (predecessors.size() == 1) {
+            value = readVariable(symbol, predecessors.getFirst());
+        } else {
+            IrPhi phi = createPhi(symbol, block);
+            // Breaks the recursion for loops that lead back to this block
+            writeVariable(symbol, block, phi.target());
+            value = Optional.of(addPhiOperands(symbol, phi));
+        }
+
+        value.ifPresent(v -> writeVariable(symbol, block, v));
+        return value;
+    }
+
+    private IrPhi createPhi(Symbol symbol, IrBlock block) {
+        IrPhi phi = new IrPhi(
+                ssaValueGenerator().generateNewSSAValue(IrType.from(symbol.type()), Optional.of(symbol)),
+                new ArrayList<>());
+        block.insertInstruction(0, phi);
+        placedPhis.put(phi.target(), new PlacedPhi(block, new ArrayList<>()));
+        return phi;
+    }
+
+    private SSAValue addPhiOperands(Symbol symbol, IrPhi phi) {
+        IrBlock block = placedPhis.get(phi.target()).block();
+        for (IrBlock predecessor : block.getPredecessorBlocks()) {
+            Optional<SSAValue> operand = readVariable(symbol, predecessor);
+            if (operand.isEmpty()) {
+                continue;
+            }
+
+            phi.addPhiItem(new IrPhi.IrPhiItem(operand.get(), predecessor));
+            PlacedPhi operandPhi = placedPhis.get(operand.get());
+            if (operandPhi != null) {
+                operandPhi.users().add(phi);
+            }
+        }
+
+        return tryRemoveTrivialPhi(phi);
+    }
+
+    // A phi that only merges itself and one other value is replaced by that value,
+    // which can make the phis using it trivial as well
+    private SSAValue tryRemoveTrivialPhi(IrPhi phi) {
+        Optional<SSAValue> same = Optional.empty();
+        for (IrPhi.IrPhiItem item : phi.sources()) {
+            SSAValue operand = resolve(item.value());
+            if (operand == phi.target() || same.isPresent() && same.get() == operand) {
+                continue;
+            }
+            if (same.isPresent()) {
+                return phi.target();
+            }
+            same = Optional.of(operand);
+        }
+        if (same.isEmpty()) {
+            // Only reachable through blocks without a definition, kept like an unfilled placeholder phi
+            return phi.target();
+        }
+
+        PlacedPhi removed = placedPhis.get(phi.target());
+        placedPhis.remove(phi.target());
+        removed.block().removeInstruction(phi);
+        replacements.put(phi.target(), same.get());
+
+        PlacedPhi replacingPhi = placedPhis.get(same.get());
+        if (replacingPhi != null) {
+            replacingPhi.users().addAll(removed.users());
+        }
+        for (IrPhi user : removed.users()) {
+            if (user != phi && placedPhis.containsKey(user.target())) {
+                tryRemoveTrivialPhi(user);
+            }
+        }
+
+        return same.get();
+    }
+
+    private SSAValue resolve(SSAValue value) {
+        SSAValue replacement = replacements.get(value);
+        if (replacement == null) {
+            return value;
+        }
+
+        SSAValue resolved = resolve(replacement);
+        if (resolved != replacement) {
+            replacements.put(value, resolved);
+        }
+        return resolved;
+    }
+
+    private void replaceRemovedPhiOperands(IrInstruction instruction) {
+        switch (instruction) {
+            case IrBinaryOperationInstruction binaryOperationInstruction -> {
+                binaryOperationInstruction.replaceLeftSrc(resolve(binaryOperationInstruction.leftSrc()));
+                binaryOperationInstruction.replaceRightSrc(resolve(binaryOperationInstruction.rightSrc()));
+            }
+            case IrUnaryOperationInstruction unaryOperationInstruction ->
+                    unaryOperationInstruction.replaceSrc(resolve(unaryOperationInstruction.src()));
+            case IrMoveInstruction moveInstruction -> moveInstruction.replaceSource(resolve(moveInstruction.source()));
+            case IrPhi phi -> phi.sources().forEach(item -> item.changeValue(resolve(item.value())));
+            case IrBranchInstruction branchInstruction ->
+                    branchInstruction.replaceConditionValue(resolve(branchInstruction.conditionValue()));
+            case IrReturnInstruction returnInstruction -> returnInstruction.replaceSrc(resolve(returnInstruction.src()));
+            case IrCallInstruction callInstruction -> {
+                for (int i = 0; i < callInstruction.arguments().size(); i++) {
+                    callInstruction.replaceArgument(i, resolve(callInstruction.arguments().get(i)));
+                }
+            }
+            case IrBoolConstantInstruction _, IrIntConstantInstruction _, IrParameterInstruction _, IrJumpInstruction _ -> { }
+        }
+    }
+
+    private record PlacedPhi(IrBlock block, List<IrPhi> users) { }
+}
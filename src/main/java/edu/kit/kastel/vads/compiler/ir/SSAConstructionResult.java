@@ -53,6 +53,12 @@ public interface SSAConstructionResult {
         public SSAValue asSSAValue() {
             return value;
         }
+
+        // Function calls are statements as well, their value is discarded then
+        @Override
+        public TerminationType asTerminationType() {
+            return TerminationType.NONE;
+        }
     }
 
     enum TerminationType {
@@ -6,17 +6,24 @@ import org.jspecify.annotations.Nullable;
 import java.util.Objects;
 import java.util.Optional;
 
-public final class SSAValue {
+public final class SSAValue implements DenselyNumbered {
+    private final int id;
     private final String name;
     private final IrType type;
     private final @Nullable Symbol symbol;
 
-    public SSAValue(String name, IrType type, Optional<Symbol> symbol) {
-        this.name = name;
+    public SSAValue(int id, IrType type, Optional<Symbol> symbol) {
+        this.id = id;
+        this.name = "%" + id;
         this.type = type;
         this.symbol = symbol.orElse(null);
     }
 
+    @Override
+    public int id() {
+        return id;
+    }
+
     public String name() {
         return name;
     }
@@ -40,13 +47,13 @@ public final class SSAValue {
         if (obj == this) return true;
         if (obj == null || obj.getClass() != this.getClass()) return false;
         var that = (SSAValue) obj;
-        return Objects.equals(this.name, that.name)
+        return this.id == that.id
                 && Objects.equals(this.type, that.type);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, type);
+        return id;
     }
 
     @Override
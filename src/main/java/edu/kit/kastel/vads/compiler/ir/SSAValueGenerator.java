@@ -2,16 +2,25 @@ package edu.kit.kastel.vads.compiler.ir;
 
 import edu.kit.kastel.vads.compiler.frontend.semantic.hir.Symbol;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+// Hands out the ids of one function, the id of a value is its index in values
 public final class SSAValueGenerator {
-    private int ssaValueNameCounter = 0;
+    private final List<SSAValue> values = new ArrayList<>();
 
-    public void reset() {
-        ssaValueNameCounter = 0;
+    public SSAValue generateNewSSAValue(IrType type, Optional<Symbol> symbol) {
+        SSAValue value = new SSAValue(values.size(), type, symbol);
+        values.add(value);
+        return value;
     }
 
-    public SSAValue generateNewSSAValue(IrType type, Optional<Symbol> symbol) {
-        return new SSAValue("%" + ssaValueNameCounter++, type, symbol);
+    public SSAValue value(int id) {
+        return values.get(id);
+    }
+
+    public int valueCount() {
+        return values.size();
     }
 }
@@ -7,19 +7,19 @@ import java.util.*;
 
 public final class SSAVariableRenameRecording {
     private final Map<Symbol, List<SSAValue>> ssaValueMappings;
-    private final Map<SSAValue, Symbol> invertedMappings;
-    private final Map<IrBlock, List<SSAValue>> ssaValuesByDefiningBlocks;
+    private final DenseMap<SSAValue, Symbol> invertedMappings;
+    private final DenseMap<IrBlock, List<SSAValue>> ssaValuesByDefiningBlocks;
 
     public SSAVariableRenameRecording() {
         this.ssaValueMappings = new HashMap<>();
-        this.invertedMappings = new HashMap<>();
-        this.ssaValuesByDefiningBlocks = new HashMap<>();
+        this.invertedMappings = new DenseMap<>();
+        this.ssaValuesByDefiningBlocks = new DenseMap<>();
     }
 
-    private SSAVariableRenameRecording(Map<Symbol, List<SSAValue>> ssaValueMappings, Map<IrBlock, List<SSAValue>> ssaValuesByDefiningBlocks) {
+    private SSAVariableRenameRecording(Map<Symbol, List<SSAValue>> ssaValueMappings, DenseMap<IrBlock, List<SSAValue>> ssaValuesByDefiningBlocks) {
         this.ssaValueMappings = ssaValueMappings;
 
-        Map<SSAValue, Symbol> invertedMappings = new HashMap<>();
+        DenseMap<SSAValue, Symbol> invertedMappings = new DenseMap<>();
         for (Map.Entry<Symbol, List<SSAValue>> mapping : ssaValueMappings.entrySet()) {
             for (SSAValue value : mapping.getValue()) {
                 invertedMappings.put(value, mapping.getKey());
@@ -61,17 +61,12 @@ public final class SSAVariableRenameRecording {
         return result;
     }
 
-    public void clear() {
-        ssaValueMappings.clear();
-        invertedMappings.clear();
-        ssaValuesByDefiningBlocks.clear();
-    }
 
     public Map<Symbol, List<SSAValue>> getSSAValueMappings() {
         return Collections.unmodifiableMap(ssaValueMappings);
     }
 
-    public Map<SSAValue, Symbol> getInvertedSSAValueMappings() { return Collections.unmodifiableMap(invertedMappings); }
+    public DenseMap<SSAValue, Symbol> getInvertedSSAValueMappings() { return invertedMappings; }
 
     public SSAVariableRenameRecording copy() {
         Map<Symbol, List<SSAValue>> newMappings = new HashMap<>();
@@ -81,11 +76,8 @@ public final class SSAVariableRenameRecording {
             newMappings.put(entry.getKey(), newValues);
         }
 
-        Map<IrBlock, List<SSAValue>> ssaValuesByDefiningBlocks = new HashMap<>();
-        for (Map.Entry<IrBlock, List<SSAValue>> entry : this.ssaValuesByDefiningBlocks.entrySet()) {
-            List<SSAValue> newValues = new ArrayList<>(entry.getValue());
-            ssaValuesByDefiningBlocks.put(entry.getKey(), newValues);
-        }
+        DenseMap<IrBlock, List<SSAValue>> ssaValuesByDefiningBlocks = new DenseMap<>(this.ssaValuesByDefiningBlocks.size());
+        this.ssaValuesByDefiningBlocks.forEach((block, values) -> ssaValuesByDefiningBlocks.put(block, new ArrayList<>(values)));
 
         return new SSAVariableRenameRecording(newMappings, ssaValuesByDefiningBlocks);
     }
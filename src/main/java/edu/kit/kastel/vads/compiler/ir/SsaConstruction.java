@@ -2,16 +2,48 @@ package edu.kit.kastel.vads.compiler.ir;
 
 import edu.kit.kastel.vads.compiler.frontend.semantic.hir.*;
 import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
 
 import java.util.*;
 
 public class SsaConstruction implements TypedResultVisitor<SsaConstructionContext, SSAConstructionResult> {
+    private final CompilerStatistics statistics;
+    private final SsaConstructionMode mode;
 
+    public SsaConstruction(CompilerStatistics statistics, SsaConstructionMode mode) {
+        this.statistics = statistics;
+        this.mode = mode;
+    }
+
+    // Functions share no construction state, so they are built concurrently and collected in source order
     public IrFile generateIr(TypedFile typedFile) {
-        SsaConstructionContext context = new SsaConstructionContext();
-        SSAConstructionResult result = typedFile.accept(this, context);
+        Optional<String> parentPhase = statistics.currentPhasePath();
+        List<IrFunction> functions = typedFile.functions()
+                .parallelStream()
+                .map(function -> generateFunction(function, parentPhase))
+                .toList();
 
-        return result.asFile();
+        return new IrFile(functions);
+    }
+
+    private IrFunction generateFunction(TypedFunction function, Optional<String> parentPhase) {
+        return switch (mode) {
+            case DOMINANCE_FRONTIERS -> {
+                SsaConstructionContext context = new SsaConstructionContext(function.symbol().name());
+                IrFunction irFunction = function.accept(this, context).asFunction();
+
+                statistics.measure(parentPhase, "phiInsertion", () -> insertPhis(irFunction, context));
+                yield irFunction;
+            }
+            case ON_THE_FLY -> {
+                // Phis are already placed, only uses of removed trivial phis are left to rewrite
+                OnTheFlySsaConstructionContext context = new OnTheFlySsaConstructionContext(function.symbol().name());
+                IrFunction irFunction = function.accept(this, context).asFunction();
+
+                statistics.measure(parentPhase, "phiResolution", () -> context.completeFunction(irFunction));
+                yield irFunction;
+            }
+        };
     }
 
     @Override
@@ -94,6 +126,8 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
         IrBlock elseBlock = context.createBlock("if_else");
 
         generateBranchInstruction(conditionResult.asSSAValue(), context.currentBlock(), thenBlock, elseBlock);
+        context.sealBlock(thenBlock);
+        context.sealBlock(elseBlock);
 
         context.newCurrentBlock(elseBlock);
         SSAConstructionResult elseResult = conditionalExpression.elseExpression().accept(this, context);
@@ -105,6 +139,7 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
         IrBlock thenBranchLastBlock = context.currentBlock();
         generateJumpInstruction(thenBranchLastBlock, fBlock);
 
+        context.sealBlock(fBlock);
         context.newCurrentBlock(fBlock);
         IrPhi phi = new IrPhi(
                 context.generateNewSSAValue(conditionalExpression.type(), context.currentBlock()),
@@ -140,37 +175,50 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
 
     @Override
     public SSAConstructionResult visit(TypedFile file, SsaConstructionContext context) {
-        List<IrFunction> functions = new ArrayList<>();
-
-        for (TypedFunction function : file.functions()) {
-            SSAConstructionResult result = function.accept(this, context);
-            functions.add(result.asFunction());
-        }
-
-        IrFile irFile = new IrFile(functions);
-        return SSAConstructionResult.file(irFile);
+        // Every function is constructed with its own context
+        return SSAConstructionResult.file(generateIr(file));
     }
 
+    // Expects a fresh context for the function, with dominance frontiers phis are inserted afterwards by generateFunction
     @Override
     public SSAConstructionResult visit(TypedFunction function, SsaConstructionContext context) {
-        IrBlock startBlock = context.beginFunction(function.symbol().name());
-        function.body().accept(this, context);
-
-        IrFunction irFunction = new IrFunction(startBlock, context.blocks(), function.isMainFunction());
+        List<TypedParameter> parameters = function.parameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            context.currentBlock().addInstruction(new IrParameterInstruction(
+                    context.generateNewSSAValue(parameters.get(i).symbol(), context.currentBlock()), i));
+        }
 
-        new IrPhiGenerator().addPhis(irFunction, context.getSSAVariables(), context.ssaValueGenerator());
+        function.body().accept(this, context);
 
+        IrFunction irFunction = new IrFunction(
+                context.startBlock(), context.blocks(), function.isMainFunction(), context.ssaValueGenerator());
         return SSAConstructionResult.function(irFunction);
     }
 
+    protected void insertPhis(IrFunction function, SsaConstructionContext context) {
+        new IrPhiGenerator().addPhis(function, context.getSSAVariables(), context.ssaValueGenerator());
+    }
+
+    // Arguments are evaluated from left to right before the call
     @Override
-    public SSAConstructionResult visit(TypedFunctionCall functionCall, SsaConstructionContext ssaConstructionContext) {
-        return null;
+    public SSAConstructionResult visit(TypedFunctionCall functionCall, SsaConstructionContext context) {
+        List<SSAValue> arguments = new ArrayList<>();
+        for (TypedArgument argument : functionCall.arguments()) {
+            arguments.add(argument.accept(this, context).asSSAValue());
+        }
+
+        IrCallInstruction callInstruction = new IrCallInstruction(
+                context.generateNewSSAValue(functionCall.type(), context.currentBlock()),
+                SsaConstructionContext.startBlockName(functionCall.calledFunction().symbol().name()),
+                arguments);
+        context.currentBlock().addInstruction(callInstruction);
+
+        return SSAConstructionResult.ssaValue(callInstruction.target());
     }
 
     @Override
-    public SSAConstructionResult visit(TypedArgument argument, SsaConstructionContext ssaConstructionContext) {
-        return null;
+    public SSAConstructionResult visit(TypedArgument argument, SsaConstructionContext context) {
+        return argument.expression().accept(this, context);
     }
 
     @Override
@@ -184,6 +232,8 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
             IrBlock elseBlock = context.createBlock("if_else");
 
             generateBranchInstruction(conditionResult.asSSAValue(), context.currentBlock(), thenBlock, elseBlock);
+            context.sealBlock(thenBlock);
+            context.sealBlock(elseBlock);
 
             context.newCurrentBlock(elseBlock);
             SSAConstructionResult elseResult = ifStatement.elseStatement().get().accept(this, context);
@@ -207,12 +257,14 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
                 // No need for further phi nodes.
                 return SSAConstructionResult.statement(SSAConstructionResult.TerminationType.STRONG);
             }
+            context.sealBlock(fBlock);
             context.newCurrentBlock(fBlock);
             return SSAConstructionResult.statement(
                     elseResult.asTerminationType().merge(
                             thenResult.asTerminationType()));
         } else {
             generateBranchInstruction(conditionResult.asSSAValue(), context.currentBlock(), thenBlock, fBlock);
+            context.sealBlock(thenBlock);
 
             context.newCurrentBlock(thenBlock);
             SSAConstructionResult thenResult = ifStatement.thenStatement().accept(this, context);
@@ -220,6 +272,7 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
             if (thenResult.asTerminationType() == SSAConstructionResult.TerminationType.NONE) {
                 generateJumpInstruction(context.currentBlock(), fBlock);
             }
+            context.sealBlock(fBlock);
             context.newCurrentBlock(fBlock);
             return SSAConstructionResult.statement(SSAConstructionResult.TerminationType.NONE);
         }
@@ -278,6 +331,8 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
             // Body ends in a return statements on all paths
             // => Post condition and branch are dead code
 
+            context.sealBlock(bodyBlock);
+            context.sealBlock(loopExitBlock);
             context.newCurrentBlock(loopExitBlock);
             // Return none because loop might not be executed
             return SSAConstructionResult.statement(SSAConstructionResult.TerminationType.NONE);
@@ -296,6 +351,7 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
             }
 
             //Add post iteration statement block if post iteration statement is present
+            context.sealBlock(postIterationStatementBlock);
             context.newCurrentBlock(postIterationStatementBlock);
             // We assume post iteration statement is an assignment => can not terminate
             loop.postIterationStatement().get().accept(this, context);
@@ -314,11 +370,15 @@ public class SsaConstruction implements TypedResultVisitor<SsaConstructionContex
         }
 
         // Generate the condition evaluation block
+        context.sealBlock(conditionEvaluationBlock);
         context.newCurrentBlock(conditionEvaluationBlock);
         SSAConstructionResult bottomConstructionResult = loop.conditionExpression().accept(this, context);
         generateBranchInstruction(bottomConstructionResult.asSSAValue(), context.currentBlock(), bodyBlock, loopExitBlock);
+        // The back edge is the last predecessor of the body
+        context.sealBlock(bodyBlock);
 
         // Prepare the block for further instructions
+        context.sealBlock(loopExitBlock);
         context.newCurrentBlock(loopExitBlock);
 
         return SSAConstructionResult.statement();
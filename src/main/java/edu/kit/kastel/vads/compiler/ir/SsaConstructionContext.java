@@ -5,32 +5,34 @@ import edu.kit.kastel.vads.compiler.frontend.semantic.hir.Symbol;
 
 import java.util.*;
 
+// Holds the construction state of a single function, so every function owns its blocks and SSA values
 public class SsaConstructionContext {
     private IrBlock currentBlock;
+    private final IrBlock startBlock;
     private final List<IrBlock> blocks;
     private final SSAVariableRenameRecording globalVariableNameRecording;
-    private Stack<LoopContext> loopContexts = new Stack<>();
-    private String functionName;
+    private final Stack<LoopContext> loopContexts;
+    private final String functionName;
     private int blockCounter = 0;
     private final SSAValueGenerator ssaValueGenerator;
 
 
-    public SsaConstructionContext() {
-        this.currentBlock = null;
+    public SsaConstructionContext(String functionName) {
+        this.functionName = "func_" + functionName;
         this.blocks = new ArrayList<>();
         this.globalVariableNameRecording = new SSAVariableRenameRecording();
         this.loopContexts = new Stack<>();
         this.ssaValueGenerator = new SSAValueGenerator();
-        this.functionName = null;
+        this.startBlock = new IrBlock(blockCounter++, startBlockName(functionName));
+        newCurrentBlock(startBlock);
     }
 
-    public IrBlock beginFunction(String name) {
-        this.functionName = "func_" + name;
-        blockCounter = 0;
-        IrBlock startBlock = createBlock("start");
-        newCurrentBlock(startBlock);
-        ssaValueGenerator.reset();
-        globalVariableNameRecording.clear();
+    // Calls of the function jump to the label of its start block
+    public static String startBlockName(String functionName) {
+        return "func_" + functionName + "_start_0";
+    }
+
+    public IrBlock startBlock() {
         return startBlock;
     }
 
@@ -39,11 +41,8 @@ public class SsaConstructionContext {
     }
 
     public IrBlock createBlock(String role) {
-        return new IrBlock(getBlockName(role));
-    }
-
-    private String getBlockName(String role) {
-        return functionName + "_" + role + "_" + blockCounter++;
+        int id = blockCounter++;
+        return new IrBlock(id, functionName + "_" + role + "_" + id);
     }
 
     public void newCurrentBlock(IrBlock block) {
@@ -55,6 +54,10 @@ public class SsaConstructionContext {
         return blocks;
     }
 
+    // Called once all predecessors of the block are known, phis are only placed on the fly after that
+    public void sealBlock(IrBlock block) {
+    }
+
     public SSAValue generateNewSSAValue(HirType type, IrBlock definingBlock) {
         SSAValue newValue = ssaValueGenerator.generateNewSSAValue(IrType.from(type), Optional.empty());
         globalVariableNameRecording.introduceNewSSAValue(newValue, definingBlock);
@@ -0,0 +1,28 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import java.util.Arrays;
+
+// How phis are placed during SSA construction
+public enum SsaConstructionMode {
+    // Inserts phis after construction at the iterated dominance frontiers (IrPhiGenerator)
+    DOMINANCE_FRONTIERS("dominance-frontiers"),
+    // Creates phis lazily while reading variables and removes trivial ones immediately (Braun et al.)
+    ON_THE_FLY("on-the-fly");
+
+    private final String id;
+
+    SsaConstructionMode(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public static SsaConstructionMode fromId(String id) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.id.equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown SSA construction mode " + id));
+    }
+}
@@ -0,0 +1,37 @@
+package edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions;
+
+import edu.kit.kastel.vads.compiler.ir.SSAValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Calls a function, functionLabel is the name of the start block of the called function
+public final class IrCallInstruction implements IrValueProducingInstruction {
+    private final SSAValue target;
+    private final String functionLabel;
+    private final List<SSAValue> arguments;
+
+    public IrCallInstruction(SSAValue target, String functionLabel, List<SSAValue> arguments) {
+        this.target = target;
+        this.functionLabel = functionLabel;
+        this.arguments = new ArrayList<>(arguments);
+    }
+
+    @Override
+    public SSAValue target() {
+        return target;
+    }
+
+    public String functionLabel() {
+        return functionLabel;
+    }
+
+    public List<SSAValue> arguments() {
+        return Collections.unmodifiableList(arguments);
+    }
+
+    public void replaceArgument(int index, SSAValue newArgument) {
+        arguments.set(index, newArgument);
+    }
+}
@@ -0,0 +1,7 @@
+package edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions;
+
+import edu.kit.kastel.vads.compiler.ir.SSAValue;
+
+// Reads the argument passed for the parameter at the given position, only found at the start of a function
+public record IrParameterInstruction(SSAValue target, int index) implements IrValueProducingInstruction {
+}
@@ -4,7 +4,8 @@ import edu.kit.kastel.vads.compiler.ir.IrInstruction;
 import edu.kit.kastel.vads.compiler.ir.SSAValue;
 
 public sealed interface IrValueProducingInstruction extends IrInstruction
-        permits IrPhi, IrBoolConstantInstruction, IrIntConstantInstruction, IrMoveInstruction, IrBinaryOperationInstruction, IrUnaryOperationInstruction
+        permits IrPhi, IrBoolConstantInstruction, IrIntConstantInstruction, IrMoveInstruction, IrBinaryOperationInstruction, IrUnaryOperationInstruction,
+        IrCallInstruction, IrParameterInstruction
     {
     SSAValue target();
 }
@@ -0,0 +1,19 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+
+import java.util.BitSet;
+
+// Gen/kill problem over the blocks of one function. Facts are numbered from 0 to factCount() - 1 and stored as bits.
+public interface DataflowAnalysis {
+    DataflowDirection direction();
+
+    MeetOperator meet();
+
+    int factCount();
+
+    // Facts entering the start block for forward analyses, leaving the exit blocks for backward analyses
+    BitSet boundary();
+
+    GenKill transfer(IrBlock block);
+}
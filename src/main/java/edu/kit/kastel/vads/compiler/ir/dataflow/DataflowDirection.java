@@ -0,0 +1,8 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+public enum DataflowDirection {
+    // Facts flow from the start block along the edges
+    FORWARD,
+    // Facts flow from the exit blocks against the edges
+    BACKWARD
+}
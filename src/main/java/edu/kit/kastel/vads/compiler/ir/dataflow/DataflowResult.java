@@ -0,0 +1,43 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+import edu.kit.kastel.vads.compiler.ir.DenseIntMap;
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+
+import java.util.BitSet;
+
+// Facts at the start and the end of every block, independent of the direction of the analysis.
+// The returned bitsets belong to the result and must not be modified.
+public final class DataflowResult {
+    private final DenseIntMap<IrBlock> positions;
+    private final BitSet[] entryFacts;
+    private final BitSet[] exitFacts;
+    private final int iterations;
+
+    DataflowResult(DenseIntMap<IrBlock> positions, BitSet[] entryFacts, BitSet[] exitFacts, int iterations) {
+        this.positions = positions;
+        this.entryFacts = entryFacts;
+        this.exitFacts = exitFacts;
+        this.iterations = iterations;
+    }
+
+    public BitSet entry(IrBlock block) {
+        return entryFacts[position(block)];
+    }
+
+    public BitSet exit(IrBlock block) {
+        return exitFacts[position(block)];
+    }
+
+    // Number of transfer function evaluations until the fixpoint was reached
+    public int iterations() {
+        return iterations;
+    }
+
+    private int position(IrBlock block) {
+        int position = positions.get(block);
+        if (position < 0) {
+            throw new IllegalArgumentException("Block " + block.name() + " is not part of the analyzed function");
+        }
+        return position;
+    }
+}
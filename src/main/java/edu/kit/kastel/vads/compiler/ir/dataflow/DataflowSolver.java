@@ -0,0 +1,128 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+import edu.kit.kastel.vads.compiler.ir.BlockOrder;
+import edu.kit.kastel.vads.compiler.ir.DenseIntMap;
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
+import org.jspecify.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.List;
+
+// Worklist solver for gen/kill problems. Blocks are visited in reverse postorder for forward and in postorder for
+// backward analyses, so that a block is usually processed after the blocks its facts depend on. The worklist sweeps
+// through that order and only revisits blocks whose inputs changed, which reaches the fixpoint of structured code
+// in a few sweeps.
+public final class DataflowSolver {
+    private DataflowSolver() {
+    }
+
+    public static DataflowResult solve(IrFunction function, DataflowAnalysis analysis) {
+        boolean forward = analysis.direction() == DataflowDirection.FORWARD;
+        List<IrBlock> order = BlockOrder.reversePostorder(function);
+        if (!forward) {
+            order = order.reversed();
+        }
+
+        int blockCount = order.size();
+        DenseIntMap<IrBlock> positions = new DenseIntMap<>(function.blockIdBound(), -1);
+        for (int i = 0; i < blockCount; i++) {
+            positions.put(order.get(i), i);
+        }
+
+        // Blocks the facts come from and the blocks they flow to, as positions in the order
+        int[][] sources = new int[blockCount][];
+        int[][] targets = new int[blockCount][];
+        GenKill[] transfers = new GenKill[blockCount];
+        BitSet[] inFacts = new BitSet[blockCount];
+        BitSet[] outFacts = new BitSet[blockCount];
+        boolean[] boundary = new boolean[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            IrBlock block = order.get(i);
+            List<IrBlock> predecessors = block.getPredecessorBlocks();
+            List<IrBlock> successors = block.getSuccessorBlocks();
+            sources[i] = positionsOf(forward ? predecessors : successors, positions);
+            targets[i] = positionsOf(forward ? successors : predecessors, positions);
+            transfers[i] = analysis.transfer(block);
+            inFacts[i] = new BitSet(analysis.factCount());
+            outFacts[i] = initialFacts(analysis);
+            boundary[i] = sources[i].length == 0 || forward && block == function.startBlock();
+        }
+
+        BitSet boundaryFacts = analysis.boundary();
+        BitSet scratch = new BitSet(analysis.factCount());
+        BitSet worklist = new BitSet(blockCount);
+        worklist.set(0, blockCount);
+        int cursor = 0;
+        int iterations = 0;
+        while (!worklist.isEmpty()) {
+            int i = worklist.nextSetBit(cursor);
+            if (i < 0) {
+                i = worklist.nextSetBit(0);
+            }
+            worklist.clear(i);
+            cursor = i + 1;
+            iterations++;
+
+            meet(analysis.meet(), inFacts[i], sources[i], outFacts, boundary[i] ? boundaryFacts : null);
+
+            scratch.clear();
+            scratch.or(inFacts[i]);
+            scratch.andNot(transfers[i].kill());
+            scratch.or(transfers[i].gen());
+            if (!scratch.equals(outFacts[i])) {
+                BitSet previous = outFacts[i];
+                outFacts[i] = scratch;
+                scratch = previous;
+                for (int target : targets[i]) {
+                    worklist.set(target);
+                }
+            }
+        }
+
+        return forward
+                ? new DataflowResult(positions, inFacts, outFacts, iterations)
+                : new DataflowResult(positions, outFacts, inFacts, iterations);
+    }
+
+    private static void meet(
+            MeetOperator operator,
+            BitSet result,
+            int[] sources,
+            BitSet[] outFacts,
+            @Nullable BitSet boundaryFacts) {
+        result.clear();
+        boolean first = true;
+        if (boundaryFacts != null) {
+            result.or(boundaryFacts);
+            first = false;
+        }
+        for (int source : sources) {
+            if (first) {
+                result.or(outFacts[source]);
+                first = false;
+            } else if (operator == MeetOperator.UNION) {
+                result.or(outFacts[source]);
+            } else {
+                result.and(outFacts[source]);
+            }
+        }
+    }
+
+    // Top of the lattice, so that the first meet is not restricted by blocks that were not visited yet
+    private static BitSet initialFacts(DataflowAnalysis analysis) {
+        BitSet facts = new BitSet(analysis.factCount());
+        if (analysis.meet() == MeetOperator.INTERSECTION) {
+            facts.set(0, analysis.factCount());
+        }
+        return facts;
+    }
+
+    private static int[] positionsOf(List<IrBlock> blocks, DenseIntMap<IrBlock> positions) {
+        int[] result = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            result[i] = positions.get(blocks.get(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,7 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+import java.util.BitSet;
+
+// Transfer function of a whole block: out = gen | (in & ~kill)
+public record GenKill(BitSet gen, BitSet kill) {
+}
@@ -0,0 +1,40 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+import edu.kit.kastel.vads.compiler.ir.IrBranchInstruction;
+import edu.kit.kastel.vads.compiler.ir.IrInstruction;
+import edu.kit.kastel.vads.compiler.ir.IrJumpInstruction;
+import edu.kit.kastel.vads.compiler.ir.IrReturnInstruction;
+import edu.kit.kastel.vads.compiler.ir.SSAValue;
+import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.*;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Values read and written by instructions, as seen by dataflow analyses
+public final class IrOperands {
+    private IrOperands() {
+    }
+
+    // Phi operands are not visited, they are used at the end of the corresponding predecessor block
+    public static void forEachUse(IrInstruction instruction, Consumer<SSAValue> action) {
+        switch (instruction) {
+            case IrBinaryOperationInstruction binaryOperationInstruction -> {
+                action.accept(binaryOperationInstruction.leftSrc());
+                action.accept(binaryOperationInstruction.rightSrc());
+            }
+            case IrUnaryOperationInstruction unaryOperationInstruction -> action.accept(unaryOperationInstruction.src());
+            case IrMoveInstruction moveInstruction -> action.accept(moveInstruction.source());
+            case IrBranchInstruction branchInstruction -> action.accept(branchInstruction.conditionValue());
+            case IrReturnInstruction returnInstruction -> action.accept(returnInstruction.src());
+            case IrCallInstruction callInstruction -> callInstruction.arguments().forEach(action);
+            case IrPhi _, IrBoolConstantInstruction _, IrIntConstantInstruction _, IrParameterInstruction _, IrJumpInstruction _ -> { }
+        }
+    }
+
+    public static Optional<SSAValue> definition(IrInstruction instruction) {
+        if (instruction instanceof IrValueProducingInstruction valueProducingInstruction) {
+            return Optional.of(valueProducingInstruction.target());
+        }
+        return Optional.empty();
+    }
+}
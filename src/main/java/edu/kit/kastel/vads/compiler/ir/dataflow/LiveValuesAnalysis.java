@@ -0,0 +1,80 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
+import edu.kit.kastel.vads.compiler.ir.IrInstruction;
+import edu.kit.kastel.vads.compiler.ir.SSAValue;
+import edu.kit.kastel.vads.compiler.ir.ValueProducingInstructions.IrPhi;
+
+import java.util.BitSet;
+
+// Backward liveness of SSA values, bit i stands for the value with id i.
+// A phi operand is used at the end of the predecessor it comes from, not in the block of the phi.
+// Ignored values are never live, e.g. constants the backend encodes as immediates.
+public final class LiveValuesAnalysis implements DataflowAnalysis {
+    private final IrFunction function;
+    private final BitSet ignoredValues;
+
+    public LiveValuesAnalysis(IrFunction function) {
+        this(function, new BitSet());
+    }
+
+    public LiveValuesAnalysis(IrFunction function, BitSet ignoredValues) {
+        this.function = function;
+        this.ignoredValues = ignoredValues;
+    }
+
+    @Override
+    public DataflowDirection direction() {
+        return DataflowDirection.BACKWARD;
+    }
+
+    @Override
+    public MeetOperator meet() {
+        return MeetOperator.UNION;
+    }
+
+    @Override
+    public int factCount() {
+        return function.ssaValueCount();
+    }
+
+    @Override
+    public BitSet boundary() {
+        return new BitSet();
+    }
+
+    @Override
+    public GenKill transfer(IrBlock block) {
+        BitSet used = new BitSet(factCount());
+        BitSet defined = new BitSet(factCount());
+        for (IrInstruction instruction : block.getInstructions()) {
+            IrOperands.forEachUse(instruction, value -> {
+                if (!defined.get(value.id())) {
+                    used.set(value.id());
+                }
+            });
+            IrOperands.definition(instruction).ifPresent(value -> defined.set(value.id()));
+        }
+
+        for (IrBlock successor : block.getSuccessorBlocks()) {
+            for (IrInstruction instruction : successor.getInstructions()) {
+                if (instruction instanceof IrPhi phi) {
+                    addPhiUses(phi, block, used, defined);
+                }
+            }
+        }
+
+        used.andNot(ignoredValues);
+        return new GenKill(used, defined);
+    }
+
+    private static void addPhiUses(IrPhi phi, IrBlock predecessor, BitSet used, BitSet defined) {
+        for (IrPhi.IrPhiItem item : phi.sources()) {
+            SSAValue value = item.value();
+            if (item.block() == predecessor && !defined.get(value.id())) {
+                used.set(value.id());
+            }
+        }
+    }
+}
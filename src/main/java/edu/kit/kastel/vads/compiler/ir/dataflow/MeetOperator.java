@@ -0,0 +1,8 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+public enum MeetOperator {
+    // A fact holds if it holds on any incoming path
+    UNION,
+    // A fact holds if it holds on all incoming paths
+    INTERSECTION
+}
@@ -0,0 +1,73 @@
+package edu.kit.kastel.vads.compiler.ir.dataflow;
+
+import edu.kit.kastel.vads.compiler.frontend.semantic.hir.Symbol;
+import edu.kit.kastel.vads.compiler.ir.IrBlock;
+import edu.kit.kastel.vads.compiler.ir.IrFunction;
+import edu.kit.kastel.vads.compiler.ir.IrInstruction;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+// Forward reaching definitions of source variables, bit i stands for the value with id i.
+// Every value that carries a symbol is a definition of that symbol and kills all other definitions of it.
+public final class ReachingDefinitionsAnalysis implements DataflowAnalysis {
+    private final IrFunction function;
+    private final Map<Symbol, BitSet> definitionsBySymbol;
+
+    public ReachingDefinitionsAnalysis(IrFunction function) {
+        this.function = function;
+        this.definitionsBySymbol = new HashMap<>();
+        for (IrBlock block : function.blocks()) {
+            for (IrInstruction instruction : block.getInstructions()) {
+                IrOperands.definition(instruction)
+                        .ifPresent(value -> value.symbol().ifPresent(symbol -> definitionsBySymbol
+                                .computeIfAbsent(symbol, _ -> new BitSet())
+                                .set(value.id())));
+            }
+        }
+    }
+
+    @Override
+    public DataflowDirection direction() {
+        return DataflowDirection.FORWARD;
+    }
+
+    @Override
+    public MeetOperator meet() {
+        return MeetOperator.UNION;
+    }
+
+    @Override
+    public int factCount() {
+        return function.ssaValueCount();
+    }
+
+    @Override
+    public BitSet boundary() {
+        return new BitSet();
+    }
+
+    @Override
+    public GenKill transfer(IrBlock block) {
+        BitSet generated = new BitSet(factCount());
+        BitSet killed = new BitSet(factCount());
+        for (IrInstruction instruction : block.getInstructions()) {
+            IrOperands.definition(instruction).ifPresent(value -> value.symbol().ifPresent(symbol -> {
+                BitSet otherDefinitions = definitionsBySymbol.get(symbol);
+                generated.andNot(otherDefinitions);
+                killed.or(otherDefinitions);
+                generated.set(value.id());
+            }));
+        }
+        killed.andNot(generated);
+        return new GenKill(generated, killed);
+    }
+
+    // Definitions of the symbol that reach the start of the block
+    public BitSet reachingDefinitions(DataflowResult result, IrBlock block, Symbol symbol) {
+        BitSet reaching = (BitSet) result.entry(block).clone();
+        reaching.and(definitionsBySymbol.getOrDefault(symbol, new BitSet()));
+        return reaching;
+    }
+}
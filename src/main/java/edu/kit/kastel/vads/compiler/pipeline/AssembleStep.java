@@ -0,0 +1,39 @@
+package edu.kit.kastel.vads.compiler.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class AssembleStep {
+
+    public void run(PendingAssembly pendingAssembly, CompilerPipelineRunInfo runInfo) throws IOException {
+        Process gccProcess = switch (pendingAssembly) {
+            case PendingAssembly.AssemblyFile(Path assemblyPath) -> startGcc(assemblyPath.toString(), runInfo.outputFilePath());
+            case PendingAssembly.AssemblerProcess(Process process) -> process;
+        };
+
+        int gccExitCode;
+        try {
+            gccExitCode = gccProcess.waitFor();
+        } catch (InterruptedException e) {
+            gccProcess.destroy();
+            Thread.currentThread().interrupt();
+            throw new AssemblerException("Interrupted while waiting for gcc", CompilationResult.INTERNAL_ERROR_EXIT_CODE);
+        }
+
+        if (gccExitCode != 0) {
+            throw new AssemblerException("gcc failed with exit code " + gccExitCode, gccExitCode);
+        }
+    }
+
+    // Starts gcc reading the assembly from its stdin
+    public Process startStreaming(CompilerPipelineRunInfo runInfo) throws IOException {
+        return startGcc("-", runInfo.outputFilePath());
+    }
+
+    private static Process startGcc(String assemblyFile, Path outputFilePath) throws IOException {
+        return new ProcessBuilder("gcc", "-g", "-x", "assembler", "-o", outputFilePath.toString(), assemblyFile)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+}
@@ -0,0 +1,30 @@
+package edu.kit.kastel.vads.compiler.pipeline;
+
+import java.util.Arrays;
+
+// How the generated code is turned into an executable
+public enum Assembler {
+    // Writes assembly and lets gcc assemble and link it
+    GCC("gcc"),
+    // Streams the assembly into the stdin of gcc while it is still being generated
+    GCC_PIPE("gcc-pipe"),
+    // Encodes machine code and writes the ELF executable directly
+    BUILTIN("builtin");
+
+    private final String id;
+
+    Assembler(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public static Assembler fromId(String id) {
+        return Arrays.stream(values())
+                .filter(assembler -> assembler.id.equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown assembler " + id));
+    }
+}
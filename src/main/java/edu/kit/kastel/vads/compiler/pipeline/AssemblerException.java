@@ -0,0 +1,14 @@
+package edu.kit.kastel.vads.compiler.pipeline;
+
+public class AssemblerException extends RuntimeException {
+    private final int exitCode;
+
+    public AssemblerException(String message, int exitCode) {
+        super(message);
+        this.exitCode = exitCode;
+    }
+
+    public int exitCode() {
+        return exitCode;
+    }
+}
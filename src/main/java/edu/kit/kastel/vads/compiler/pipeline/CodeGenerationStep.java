@@ -1,52 +1,96 @@
 package edu.kit.kastel.vads.compiler.pipeline;
 
 import edu.kit.kastel.vads.compiler.backend.aasm.*;
+import edu.kit.kastel.vads.compiler.backend.elf.ElfExecutableWriter;
 import edu.kit.kastel.vads.compiler.ir.IrFile;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 
 public class CodeGenerationStep {
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
 
-    public void run(IrFile irFile, CodeGenerationContext codeGenerationContext) throws IOException {
-        int gccExitCode = 0;
-        try {
-            StringBuilder codeBuilder = new StringBuilder();
-            X86InstructionGenerator instructionGenerator = new X86InstructionGenerator(codeBuilder);
-            CodeGenerator codeGenerator = new DebugCodeGeneratorDecorator(new X86Bit64CodeGenerator(instructionGenerator));
+    private final AssembleStep assembleStep;
 
-            InstructionSelector instructionSelector = new InstructionSelector();
-            instructionSelector.generateCode(irFile, codeGenerator, codeGenerationContext.runInfo().sourceFilePath().toString());
-            String s = codeBuilder.toString();
+    public CodeGenerationStep(AssembleStep assembleStep) {
+        this.assembleStep = assembleStep;
+    }
 
-            String fileName = codeGenerationContext.runInfo().sourceFilePath().getFileName().toString() + ".s";
-            String assemblyFilePath = codeGenerationContext.runInfo().sourceFilePath().resolveSibling(fileName).toString();
-            Path assemblyPath = Path.of(assemblyFilePath);
-            Files.writeString(assemblyPath, s);
+    // Returns what gcc still has to do, or nothing if the builtin assembler already wrote the executable
+    public Optional<PendingAssembly> run(IrFile irFile, CodeGenerationContext codeGenerationContext) throws IOException {
+        return switch (codeGenerationContext.runInfo().assembler()) {
+            case GCC -> Optional.of(new PendingAssembly.AssemblyFile(writeAssembly(irFile, codeGenerationContext)));
+            case GCC_PIPE -> Optional.of(new PendingAssembly.AssemblerProcess(streamAssembly(irFile, codeGenerationContext)));
+            case BUILTIN -> {
+                writeExecutable(irFile, codeGenerationContext);
+                yield Optional.empty();
+            }
+        };
+    }
 
-            gccExitCode = generateExecutable(assemblyPath, codeGenerationContext.runInfo().outputFilePath());
-        }
-        catch (InterruptedException e) {
-            e.printStackTrace();
+    // Writes the assembly next to the source file and returns its path
+    private Path writeAssembly(IrFile irFile, CodeGenerationContext codeGenerationContext) throws IOException {
+        CompilerStatistics statistics = codeGenerationContext.runInfo().statistics();
+
+        StringBuilder codeBuilder = new StringBuilder();
+        selectInstructions(irFile, new X86AssemblyGenerator(codeBuilder), codeGenerationContext);
+
+        String fileName = codeGenerationContext.runInfo().sourceFilePath().getFileName().toString() + ".s";
+        Path assemblyPath = codeGenerationContext.runInfo().sourceFilePath().resolveSibling(fileName);
+        try (CompilerStatistics.PhaseScope _ = statistics.startPhase("writeAssembly")) {
+            Files.writeString(assemblyPath, codeBuilder.toString());
         }
-        catch (IOException e) {
-            e.printStackTrace();
+
+        return assemblyPath;
+    }
+
+    // Starts gcc first and writes the assembly of every function into its stdin as soon as it is generated
+    private Process streamAssembly(IrFile irFile, CodeGenerationContext codeGenerationContext) throws IOException {
+        Process gccProcess = assembleStep.startStreaming(codeGenerationContext.runInfo());
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gccProcess.getOutputStream(), StandardCharsets.UTF_8), STREAM_BUFFER_SIZE)) {
+            X86AssemblyGenerator assemblyGenerator = X86AssemblyGenerator.streamingTo(writer);
+            selectInstructions(irFile, assemblyGenerator, codeGenerationContext);
+            assemblyGenerator.flush();
+        } catch (IOException | UncheckedIOException e) {
+            gccProcess.destroy();
             throw e;
         }
+        return gccProcess;
+    }
+
+    private void writeExecutable(IrFile irFile, CodeGenerationContext codeGenerationContext) throws IOException {
+        CompilerStatistics statistics = codeGenerationContext.runInfo().statistics();
+
+        X86MachineCodeGenerator machineCodeGenerator = new X86MachineCodeGenerator();
+        selectInstructions(irFile, machineCodeGenerator, codeGenerationContext);
 
-        if (gccExitCode != 0) {
-            System.exit(gccExitCode);
+        try (CompilerStatistics.PhaseScope _ = statistics.startPhase("writeExecutable")) {
+            // The main wrapper of the instruction selector exits via syscall and can therefore serve as _start
+            ElfExecutableWriter.write(
+                    codeGenerationContext.runInfo().outputFilePath(),
+                    machineCodeGenerator.machineCode(),
+                    machineCodeGenerator.labelOffset("main"));
         }
     }
 
-    private static int generateExecutable(Path assemblyFilePath, Path outputFilePath) throws IOException, InterruptedException {
-        Process gccProcess = new ProcessBuilder(new String[] {"gcc", "-g", "-o", outputFilePath.toString(), assemblyFilePath.toString()})
-                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
-                .redirectError(ProcessBuilder.Redirect.INHERIT)
-                .start();
+    private static void selectInstructions(IrFile irFile, X86InstructionGenerator instructionGenerator, CodeGenerationContext codeGenerationContext) {
+        CompilerStatistics statistics = codeGenerationContext.runInfo().statistics();
+        CodeGenerator codeGenerator = new DebugCodeGeneratorDecorator(new X86Bit64CodeGenerator(instructionGenerator));
 
-        gccProcess.waitFor();
-        return gccProcess.exitValue();
+        InstructionSelector instructionSelector = new InstructionSelector(
+                statistics,
+                codeGenerationContext.runInfo().registerAllocation(),
+                codeGenerationContext.runInfo().peepholeWindow());
+        statistics.measure("instructionSelection",
+                () -> instructionSelector.generateCode(irFile, codeGenerator, codeGenerationContext.runInfo().sourceFilePath().toString()));
     }
 }
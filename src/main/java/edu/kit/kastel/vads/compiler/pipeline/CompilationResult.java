@@ -0,0 +1,22 @@
+package edu.kit.kastel.vads.compiler.pipeline;
+
+import java.util.Optional;
+
+public record CompilationResult(int exitCode, Optional<String> errorMessage) {
+    public static final int SUCCESS_EXIT_CODE = 0;
+    public static final int INTERNAL_ERROR_EXIT_CODE = 1;
+    public static final int SEMANTIC_ERROR_EXIT_CODE = 7;
+    public static final int PARSE_ERROR_EXIT_CODE = 42;
+
+    public static CompilationResult success() {
+        return new CompilationResult(SUCCESS_EXIT_CODE, Optional.empty());
+    }
+
+    public static CompilationResult failure(int exitCode, String errorMessage) {
+        return new CompilationResult(exitCode, Optional.of(errorMessage));
+    }
+
+    public boolean isSuccess() {
+        return exitCode == SUCCESS_EXIT_CODE;
+    }
+}
@@ -1,33 +1,85 @@
 package edu.kit.kastel.vads.compiler.pipeline;
 
+import edu.kit.kastel.vads.compiler.frontend.parser.ParseException;
+import edu.kit.kastel.vads.compiler.frontend.semantic.SemanticException;
 import edu.kit.kastel.vads.compiler.frontend.semantic.hir.TypedFile;
 import edu.kit.kastel.vads.compiler.frontend.parser.ast.ProgramTree;
 import edu.kit.kastel.vads.compiler.ir.IrFile;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
 
 import java.io.IOException;
+import java.util.Optional;
 
 public final class CompilerPipeline {
     private final ParseAndLexStep parseAndLexStep;
     private final SemanticAnalysisStep semanticAnalysisStep;
     private final IRStep irStep;
     private final CodeGenerationStep codeGenerationStep;
+    private final AssembleStep assembleStep;
 
     public CompilerPipeline() {
         parseAndLexStep = new ParseAndLexStep();
         semanticAnalysisStep = new SemanticAnalysisStep();
         irStep = new IRStep();
-        codeGenerationStep = new CodeGenerationStep();
+        assembleStep = new AssembleStep();
+        codeGenerationStep = new CodeGenerationStep(assembleStep);
+    }
+
+    public CompilationResult compile(CompilerPipelineRunInfo runInfo) {
+        return compile(() -> run(runInfo));
+    }
+
+    // Maps compile errors to exit codes instead of terminating the JVM
+    public static CompilationResult compile(PipelineRun run) {
+        try {
+            run.run();
+            return CompilationResult.success();
+        } catch (ParseException e) {
+            return CompilationResult.failure(CompilationResult.PARSE_ERROR_EXIT_CODE, "Parse error: " + e.getMessage());
+        } catch (SemanticException e) {
+            return CompilationResult.failure(CompilationResult.SEMANTIC_ERROR_EXIT_CODE, "Semantic error: " + e.getMessage());
+        } catch (AssemblerException e) {
+            return CompilationResult.failure(e.exitCode(), e.getMessage());
+        } catch (IOException e) {
+            return CompilationResult.failure(CompilationResult.INTERNAL_ERROR_EXIT_CODE, e.toString());
+        }
     }
 
     public void run(CompilerPipelineRunInfo runInfo) throws IOException {
-        ProgramTree ast = parseAndLexStep.run(runInfo);
+        Optional<PendingAssembly> pendingAssembly = generateCode(runInfo);
+        if (pendingAssembly.isPresent()) {
+            assemble(pendingAssembly.get(), runInfo);
+        }
+    }
+
+    // The CPU-bound part of the pipeline, returns what gcc still has to do unless the builtin assembler is used
+    public Optional<PendingAssembly> generateCode(CompilerPipelineRunInfo runInfo) throws IOException {
+        CompilerStatistics statistics = runInfo.statistics();
 
-        TypedFile typedFile = semanticAnalysisStep.run(ast);
+        ProgramTree ast;
+        try (CompilerStatistics.PhaseScope _ = statistics.startPhase("ParseAndLexStep")) {
+            ast = parseAndLexStep.run(runInfo);
+        }
 
-        IrFile file = irStep.run(typedFile);
+        TypedFile typedFile = statistics.measure("SemanticAnalysisStep", () -> semanticAnalysisStep.run(ast));
+
+        IrFile file = statistics.measure("IRStep", () -> irStep.run(typedFile, statistics, runInfo.ssaConstruction()));
         //List<IrGraph> irGraphs = irStep.run(ast);
 
         CodeGenerationContext codeGenerationContext = new CodeGenerationContext(ast, runInfo);
-        codeGenerationStep.run(file, codeGenerationContext);
+        try (CompilerStatistics.PhaseScope _ = statistics.startPhase("CodeGenerationStep")) {
+            return codeGenerationStep.run(file, codeGenerationContext);
+        }
+    }
+
+    public void assemble(PendingAssembly pendingAssembly, CompilerPipelineRunInfo runInfo) throws IOException {
+        try (CompilerStatistics.PhaseScope _ = runInfo.statistics().startPhase("AssembleStep")) {
+            assembleStep.run(pendingAssembly, runInfo);
+        }
+    }
+
+    @FunctionalInterface
+    public interface PipelineRun {
+        void run() throws IOException;
     }
 }
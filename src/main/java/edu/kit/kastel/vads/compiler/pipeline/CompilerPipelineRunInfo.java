@@ -1,5 +1,23 @@
 package edu.kit.kastel.vads.compiler.pipeline;
 
+import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocationMode;
+import edu.kit.kastel.vads.compiler.ir.SsaConstructionMode;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+
 import java.nio.file.Path;
 
-public record CompilerPipelineRunInfo(Path sourceFilePath, Path outputFilePath) {  }
+public record CompilerPipelineRunInfo(
+        Path sourceFilePath,
+        Path outputFilePath,
+        CompilerStatistics statistics,
+        Assembler assembler,
+        SsaConstructionMode ssaConstruction,
+        RegisterAllocationMode registerAllocation,
+        int peepholeWindow) {
+
+    // Same options for another file
+    public CompilerPipelineRunInfo withFiles(Path sourceFilePath, Path outputFilePath) {
+        return new CompilerPipelineRunInfo(
+                sourceFilePath, outputFilePath, statistics, assembler, ssaConstruction, registerAllocation, peepholeWindow);
+    }
+}
@@ -4,12 +4,22 @@ import edu.kit.kastel.vads.compiler.frontend.semantic.hir.TypedFile;
 import edu.kit.kastel.vads.compiler.ir.IrFile;
 import edu.kit.kastel.vads.compiler.ir.IrFunctionPrinter;
 import edu.kit.kastel.vads.compiler.ir.SsaConstruction;
+import edu.kit.kastel.vads.compiler.ir.SsaConstructionMode;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
 
 public class IRStep {
 
     public IrFile run(TypedFile typedFile) {
-        SsaConstruction construction = new SsaConstruction();
-        IrFile irFile = construction.generateIr(typedFile);
+        return run(typedFile, CompilerStatistics.disabled());
+    }
+
+    public IrFile run(TypedFile typedFile, CompilerStatistics statistics) {
+        return run(typedFile, statistics, SsaConstructionMode.DOMINANCE_FRONTIERS);
+    }
+
+    public IrFile run(TypedFile typedFile, CompilerStatistics statistics, SsaConstructionMode mode) {
+        SsaConstruction construction = new SsaConstruction(statistics, mode);
+        IrFile irFile = statistics.measure("ssaConstruction", () -> construction.generateIr(typedFile));
         //new IrFunctionPrinter().print(irFile);
 
         return irFile;
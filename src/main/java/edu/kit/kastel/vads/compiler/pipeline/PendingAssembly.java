@@ -0,0 +1,13 @@
+package edu.kit.kastel.vads.compiler.pipeline;
+
+import java.nio.file.Path;
+
+// What is left to do after code generation until the executable exists
+public sealed interface PendingAssembly {
+
+    // Assembly written to disk, gcc has not been started yet
+    record AssemblyFile(Path assemblyPath) implements PendingAssembly { }
+
+    // gcc already received the assembly on its stdin and only has to be waited for
+    record AssemblerProcess(Process process) implements PendingAssembly { }
+}
@@ -0,0 +1,144 @@
+package edu.kit.kastel.vads.compiler.server;
+
+import edu.kit.kastel.vads.compiler.CommandLineOptions;
+import edu.kit.kastel.vads.compiler.pipeline.CompilationResult;
+import edu.kit.kastel.vads.compiler.pipeline.CompilerPipeline;
+import edu.kit.kastel.vads.compiler.pipeline.CompilerPipelineRunInfo;
+import edu.kit.kastel.vads.compiler.statistics.CompilerStatistics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Long-lived compiler process, so compiles run on a warm JVM.
+// Line protocol: each request is a line of tab separated command line arguments ([--stats[=<file>]] <input> <output>),
+// each response a line with the exit code of the compilation, followed by a tab and the statistics JSON if --stats
+// was given without a file. "shutdown" stops the server.
+public final class CompileServer {
+    private static final String SHUTDOWN_REQUEST = "shutdown";
+    private static final int INVALID_ARGUMENTS_EXIT_CODE = 3;
+
+    private final CompilerPipeline pipeline;
+    private volatile boolean shutdownRequested;
+
+    public CompileServer(CompilerPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    // Serves requests until the end of the input or a shutdown request
+    public void serve(BufferedReader requests, Writer responses) throws IOException {
+        String line;
+        while (!shutdownRequested && (line = requests.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (line.strip().equals(SHUTDOWN_REQUEST)) {
+                shutdownRequested = true;
+                break;
+            }
+
+            responses.write(handleRequest(line));
+            responses.write('\n');
+            responses.flush();
+        }
+    }
+
+    // Serves every connection on its own virtual thread until a shutdown request is received
+    public void serveUnixSocket(Path socketPath) throws IOException {
+        Files.deleteIfExists(socketPath);
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+             ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor()) {
+            serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+
+            while (!shutdownRequested) {
+                SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (ClosedChannelException e) {
+                    break;
+                }
+                connections.submit(() -> serveConnection(channel, serverChannel));
+            }
+        } finally {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    private void serveConnection(SocketChannel channel, ServerSocketChannel serverChannel) {
+        try (channel;
+             BufferedReader requests = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+             Writer responses = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            serve(requests, responses);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (shutdownRequested) {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private String handleRequest(String request) {
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(request.split("\t"));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid request: " + e.getMessage());
+            return Integer.toString(INVALID_ARGUMENTS_EXIT_CODE);
+        }
+        if (options.server() || options.batchManifest().isPresent() || options.positionalArguments().size() != 2) {
+            System.err.println("Invalid request: Expected one input file and one output file");
+            return Integer.toString(INVALID_ARGUMENTS_EXIT_CODE);
+        }
+
+        CompilerStatistics statistics = options.printStatistics()
+                ? CompilerStatistics.enabled()
+                : CompilerStatistics.disabled();
+        CompilerPipelineRunInfo runInfo = new CompilerPipelineRunInfo(
+                Path.of(options.positionalArguments().get(0)),
+                Path.of(options.positionalArguments().get(1)),
+                statistics,
+                options.assembler(),
+                options.ssaConstruction(),
+                options.registerAllocation(),
+                options.peepholeWindow());
+
+        CompilationResult result;
+        try {
+            result = pipeline.compile(runInfo);
+            result.errorMessage().ifPresent(System.err::println);
+        } catch (RuntimeException e) {
+            // A crashing compilation must not take down the server
+            e.printStackTrace();
+            result = CompilationResult.failure(CompilationResult.INTERNAL_ERROR_EXIT_CODE, e.toString());
+        }
+
+        if (!options.printStatistics()) {
+            return Integer.toString(result.exitCode());
+        }
+        if (options.statisticsFile().isEmpty()) {
+            return result.exitCode() + "\t" + statistics.toJson();
+        }
+        try {
+            Files.writeString(options.statisticsFile().get(), statistics.toJson() + System.lineSeparator());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return Integer.toString(result.exitCode());
+    }
+}
@@ -0,0 +1,248 @@
+package edu.kit.kastel.vads.compiler.statistics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.function.Supplier;
+
+// Collects wall time, thread allocated bytes and peak heap usage per compiler phase.
+// Nested phases are named by their path (e.g. "IRStep/ssaConstruction") and are included in their parents.
+public final class CompilerStatistics {
+    private static final CompilerStatistics DISABLED = new CompilerStatistics(false);
+    private static final PhaseScope NO_OP_SCOPE = () -> { };
+
+    private final boolean enabled;
+    private final Map<String, PhaseStatistics> phases;
+    private final Map<String, Long> counters;
+    private final ThreadLocal<Deque<OpenPhase>> openPhases;
+    private final Set<OpenPhase> openPhasesOfAllThreads;
+    private final List<MemoryPoolMXBean> heapPools;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    private CompilerStatistics(boolean enabled) {
+        this.enabled = enabled;
+        this.phases = new LinkedHashMap<>();
+        this.counters = new LinkedHashMap<>();
+        this.openPhases = ThreadLocal.withInitial(ArrayDeque::new);
+        this.openPhasesOfAllThreads = new HashSet<>();
+        this.heapPools = enabled
+                ? ManagementFactory.getMemoryPoolMXBeans().stream().filter(p -> p.getType() == MemoryType.HEAP).toList()
+                : List.of();
+        this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    public static CompilerStatistics enabled() {
+        return new CompilerStatistics(true);
+    }
+
+    public static CompilerStatistics disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> T measure(String phaseName, Supplier<T> phase) {
+        try (PhaseScope _ = startPhase(phaseName)) {
+            return phase.get();
+        }
+    }
+
+    public void measure(String phaseName, Runnable phase) {
+        try (PhaseScope _ = startPhase(phaseName)) {
+            phase.run();
+        }
+    }
+
+    // For phases throwing checked exceptions: try (PhaseScope _ = statistics.startPhase("name")) { ... }
+    public PhaseScope startPhase(String phaseName) {
+        if (!enabled) {
+            return NO_OP_SCOPE;
+        }
+
+        Deque<OpenPhase> stack = openPhases.get();
+        return startPhaseAt(stack.isEmpty() ? phaseName : stack.peek().path() + "/" + phaseName);
+    }
+
+    // Open phases are tracked per thread, so work handed to other threads (e.g. per function workers)
+    // passes the path of its parent explicitly. Allocations of those threads are only counted in their own phases.
+    public Optional<String> currentPhasePath() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Deque<OpenPhase> stack = openPhases.get();
+        return stack.isEmpty() ? Optional.empty() : Optional.of(stack.peek().path());
+    }
+
+    public <T> T measure(Optional<String> parentPath, String phaseName, Supplier<T> phase) {
+        try (PhaseScope _ = startPhase(parentPath, phaseName)) {
+            return phase.get();
+        }
+    }
+
+    public void measure(Optional<String> parentPath, String phaseName, Runnable phase) {
+        try (PhaseScope _ = startPhase(parentPath, phaseName)) {
+            phase.run();
+        }
+    }
+
+    private PhaseScope startPhase(Optional<String> parentPath, String phaseName) {
+        if (!enabled) {
+            return NO_OP_SCOPE;
+        }
+        return startPhaseAt(parentPath.map(path -> path + "/" + phaseName).orElse(phaseName));
+    }
+
+    private PhaseScope startPhaseAt(String path) {
+        synchronized (phases) {
+            // Reserve the entry so phases are reported in the order they were started
+            phases.computeIfAbsent(path, PhaseStatistics::new);
+        }
+        OpenPhase phase = new OpenPhase(path, System.nanoTime(), currentThreadAllocatedBytes());
+        synchronized (openPhasesOfAllThreads) {
+            foldPeakHeapUsage();
+            openPhasesOfAllThreads.add(phase);
+        }
+        openPhases.get().push(phase);
+        return this::endPhase;
+    }
+
+    private void endPhase() {
+        long endTime = System.nanoTime();
+        long endAllocatedBytes = currentThreadAllocatedBytes();
+
+        OpenPhase phase = openPhases.get().pop();
+        synchronized (openPhasesOfAllThreads) {
+            foldPeakHeapUsage();
+            openPhasesOfAllThreads.remove(phase);
+        }
+
+        synchronized (phases) {
+            phases.get(phase.path())
+                    .record(endTime - phase.startTime(),
+                            Math.max(0, endAllocatedBytes - phase.startAllocatedBytes()),
+                            phase.peakHeapBytes());
+        }
+    }
+
+    // Pool peaks are global, so they are folded into every open phase of every thread before being reset for the
+    // next phase. A parent thus includes the peaks of phases running on worker threads (and of concurrent jobs).
+    // Called with the lock on openPhasesOfAllThreads held.
+    private void foldPeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+            pool.resetPeakUsage();
+        }
+
+        for (OpenPhase phase : openPhasesOfAllThreads) {
+            phase.updatePeakHeapBytes(peak);
+        }
+    }
+
+    private long currentThreadAllocatedBytes() {
+        if (!threadMXBean.isThreadAllocatedMemorySupported() || !threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return 0;
+        }
+        return threadMXBean.getCurrentThreadAllocatedBytes();
+    }
+
+    // Adds to a named counter (e.g. "registerAllocation/eliminatedMoves"), counters are summed over all functions and files
+    public void count(String counterName, long amount) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (counters) {
+            counters.merge(counterName, amount, Long::sum);
+        }
+    }
+
+    public Map<String, Long> counters() {
+        synchronized (counters) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(counters));
+        }
+    }
+
+    public List<PhaseStatistics> phases() {
+        synchronized (phases) {
+            return List.copyOf(phases.values());
+        }
+    }
+
+    public String toJson() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"phases\":[");
+        List<PhaseStatistics> phaseStatistics = phases();
+        for (int i = 0; i < phaseStatistics.size(); i++) {
+            PhaseStatistics phase = phaseStatistics.get(i);
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"name\":\"").append(escapeJson(phase.name())).append('"')
+                    .append(",\"invocations\":").append(phase.invocations())
+                    .append(",\"wallTimeNanos\":").append(phase.wallTimeNanos())
+                    .append(",\"allocatedBytes\":").append(phase.allocatedBytes())
+                    .append(",\"peakHeapBytes\":").append(phase.peakHeapBytes())
+                    .append('}');
+        }
+        builder.append("],\"counters\":{");
+        synchronized (counters) {
+            boolean first = true;
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+                builder.append('"').append(escapeJson(counter.getKey())).append("\":").append(counter.getValue());
+            }
+        }
+        builder.append("}}");
+        return builder.toString();
+    }
+
+    private static String escapeJson(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    @FunctionalInterface
+    public interface PhaseScope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class OpenPhase {
+        private final String path;
+        private final long startTime;
+        private final long startAllocatedBytes;
+        private long peakHeapBytes;
+
+        OpenPhase(String path, long startTime, long startAllocatedBytes) {
+            this.path = path;
+            this.startTime = startTime;
+            this.startAllocatedBytes = startAllocatedBytes;
+        }
+
+        String path() {
+            return path;
+        }
+
+        long startTime() {
+            return startTime;
+        }
+
+        long startAllocatedBytes() {
+            return startAllocatedBytes;
+        }
+
+        long peakHeapBytes() {
+            return peakHeapBytes;
+        }
+
+        void updatePeakHeapBytes(long heapBytes) {
+            peakHeapBytes = Math.max(peakHeapBytes, heapBytes);
+        }
+    }
+}
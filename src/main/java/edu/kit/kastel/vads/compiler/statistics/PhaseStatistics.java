@@ -0,0 +1,40 @@
+package edu.kit.kastel.vads.compiler.statistics;
+
+public final class PhaseStatistics {
+    private final String name;
+    private int invocations;
+    private long wallTimeNanos;
+    private long allocatedBytes;
+    private long peakHeapBytes;
+
+    PhaseStatistics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int invocations() {
+        return invocations;
+    }
+
+    public long wallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long peakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    void record(long wallTimeNanos, long allocatedBytes, long peakHeapBytes) {
+        this.invocations++;
+        this.wallTimeNanos += wallTimeNanos;
+        this.allocatedBytes += allocatedBytes;
+        this.peakHeapBytes = Math.max(this.peakHeapBytes, peakHeapBytes);
+    }
+}
@@ -5,4 +5,6 @@ module edu.kit.kastel.vads.compiler {
     requires org.jspecify;
     requires java.xml;
     requires java.desktop;
+    requires java.management;
+    requires jdk.management;
 }
\ No newline at end of file